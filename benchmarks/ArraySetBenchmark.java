@@ -0,0 +1,71 @@
+package ru.ifmo.rain.kramer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.ifmo.rain.kramer.arrayset.ArraySet;
+
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Lookups in {@link ArraySet} and {@link TreeSet} of the same elements, half of the probes are missing from the set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArraySetBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"ArraySet", "TreeSet"})
+    private String set;
+
+    private NavigableSet<Integer> target;
+    private int[] probes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(size);
+        List<Integer> values = random.ints(size, 0, 2 * size).boxed().collect(Collectors.toList());
+        target = set.equals("ArraySet") ? new ArraySet<>(values) : new TreeSet<>(values);
+        probes = random.ints(LOOKUPS, 0, 2 * size).toArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void contains(Blackhole blackhole) {
+        for (int probe : probes) {
+            blackhole.consume(target.contains(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void ceiling(Blackhole blackhole) {
+        for (int probe : probes) {
+            blackhole.consume(target.ceiling(probe));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void headSetSize(Blackhole blackhole) {
+        for (int probe : probes) {
+            blackhole.consume(target.headSet(probe, true).size());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.ifmo.rain.kramer.benchmark;
+
+import info.kgeorgiy.java.advanced.implementor.ImplerException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.ifmo.rain.kramer.implementor.Implementor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link Implementor} generating sources of large interfaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ImplementorBenchmark {
+    @Param({"java.util.NavigableSet", "java.util.concurrent.BlockingDeque", "java.util.concurrent.ConcurrentNavigableMap"})
+    private String type;
+
+    private Class<?> clazz;
+    private Implementor implementor;
+    private Path directory;
+
+    @Setup
+    public void setup() throws ClassNotFoundException, IOException {
+        clazz = Class.forName(type);
+        implementor = new Implementor();
+        directory = Files.createTempDirectory("implementor");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Path implement() throws ImplerException {
+        implementor.implement(clazz, directory);
+        return directory;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.ifmo.rain.kramer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ifmo.rain.kramer.concurrent.IterativeParallelism;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@link IterativeParallelism} for every number of threads against sequential and parallel streams.
+ * Stream benchmarks don't depend on the number of threads, so it is a parameter of {@link Threads} only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IterativeParallelismBenchmark {
+    private static final Function<Integer, Integer> WORK = IterativeParallelismBenchmark::work;
+
+    @State(Scope.Benchmark)
+    public static class Data {
+        @Param({"10000", "1000000"})
+        private int size;
+
+        private List<Integer> values;
+
+        @Setup
+        public void setup() {
+            values = new Random(size).ints(size).boxed().collect(Collectors.toList());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Threads {
+        @Param({"1", "2", "4", "8"})
+        private int threads;
+
+        private final IterativeParallelism parallelism = new IterativeParallelism();
+    }
+
+    // Some work per element, so that map isn't dominated by memory traffic
+    private static int work(int value) {
+        int hash = value;
+        for (int i = 0; i < 32; i++) {
+            hash = hash * 31 + (hash >>> 7);
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public Integer maximum(Data data, Threads threads) throws InterruptedException {
+        return threads.parallelism.maximum(threads.threads, data.values, Comparator.naturalOrder());
+    }
+
+    @Benchmark
+    public List<Integer> map(Data data, Threads threads) throws InterruptedException {
+        return threads.parallelism.map(threads.threads, data.values, WORK);
+    }
+
+    @Benchmark
+    public Integer streamMaximum(Data data) {
+        return data.values.stream().max(Comparator.naturalOrder()).orElse(null);
+    }
+
+    @Benchmark
+    public List<Integer> streamMap(Data data) {
+        return data.values.stream().map(WORK).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Integer parallelStreamMaximum(Data data) {
+        return data.values.parallelStream().max(Comparator.naturalOrder()).orElse(null);
+    }
+
+    @Benchmark
+    public List<Integer> parallelStreamMap(Data data) {
+        return data.values.parallelStream().map(WORK).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,76 @@
+package ru.ifmo.rain.kramer.benchmark;
+
+import info.kgeorgiy.java.advanced.student.Group;
+import info.kgeorgiy.java.advanced.student.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.ifmo.rain.kramer.concurrent.IterativeParallelism;
+import ru.ifmo.rain.kramer.student.StudentDB;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@link StudentDB} queries on collections of generated students.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StudentDBBenchmark {
+    private static final String[] FIRST_NAMES = {"Ivan", "Petr", "Anna", "Maria", "Oleg", "Olga", "Pavel", "Elena"};
+    private static final String[] LAST_NAMES = {"Ivanov", "Petrov", "Sidorov", "Smirnov", "Popov", "Kuznetsov"};
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    // Threads of IterativeParallelism, 0 for the sequential database
+    @Param({"0", "4"})
+    private int threads;
+
+    private List<Student> students;
+    private StudentDB db;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(size);
+        students = IntStream.range(0, size)
+                .mapToObj(i -> new Student(i, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                        LAST_NAMES[random.nextInt(LAST_NAMES.length)], "M" + (3230 + random.nextInt(40))))
+                .collect(Collectors.toList());
+        db = threads == 0 ? new StudentDB() : new StudentDB(new IterativeParallelism(), threads);
+    }
+
+    @Benchmark
+    public List<String> getFullNames() {
+        return db.getFullNames(students);
+    }
+
+    @Benchmark
+    public List<Student> sortStudentsByName() {
+        return db.sortStudentsByName(students);
+    }
+
+    @Benchmark
+    public List<Student> findStudentsByLastName() {
+        return db.findStudentsByLastName(students, LAST_NAMES[0]);
+    }
+
+    @Benchmark
+    public List<Group> getGroupsByName() {
+        return db.getGroupsByName(students);
+    }
+
+    @Benchmark
+    public String getLargestGroupFirstName() {
+        return db.getLargestGroupFirstName(students);
+    }
+}
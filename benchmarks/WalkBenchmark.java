@@ -0,0 +1,81 @@
+package ru.ifmo.rain.kramer.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.ifmo.rain.kramer.walk.RecursiveWalk;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link RecursiveWalk} computing FNV hashes of a directory of generated files, sequentially and with
+ * directories listed ahead on {@code requests} threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WalkBenchmark {
+    private static final int FILE_SIZE = 64 * 1024;
+    private static final int DIRECTORIES = 16;
+
+    // Total size of the files
+    @Param({"1024", "16384"})
+    private int kilobytes;
+
+    // Threads listing directories, 0 for the sequential walk
+    @Param({"0", "4"})
+    private int requests;
+
+    private Path directory;
+    private String[] args;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("walk");
+        Path root = Files.createDirectories(directory.resolve("root"));
+        Random random = new Random(kilobytes);
+        byte[] bytes = new byte[FILE_SIZE];
+        long remaining = kilobytes * 1024L;
+        for (int i = 0; remaining > 0; i++) {
+            random.nextBytes(bytes);
+            int length = (int) Math.min(remaining, bytes.length);
+            Path dir = Files.createDirectories(root.resolve("d" + i % DIRECTORIES));
+            Files.write(dir.resolve("f" + i), Arrays.copyOf(bytes, length));
+            remaining -= length;
+        }
+        Path input = Files.write(directory.resolve("input.txt"), List.of(root.toString()), StandardCharsets.UTF_8);
+        String output = directory.resolve("output.txt").toString();
+        args = requests == 0 ? new String[]{input.toString(), output}
+                : new String[]{input.toString(), output, "1", Integer.toString(requests)};
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void hash() {
+        RecursiveWalk.main(args);
+    }
+}
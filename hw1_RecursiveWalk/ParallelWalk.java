@@ -0,0 +1,166 @@
+package ru.ifmo.rain.kramer.walk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.file.FileVisitResult.TERMINATE;
+
+/**
+ * Traversal which lists directories and reads attributes of their entries on a pool of {@code requests} threads,
+ * for file systems where these calls are slow. When a directory is reached, its subdirectories are listed ahead
+ * up to {@code depth} levels below it. Files are passed to a single hashing thread through a bounded queue
+ * in the same pre-order as {@link Files#walkFileTree(Path, java.nio.file.FileVisitor)} visits them,
+ * so the output is the same as of the sequential walk.
+ */
+class ParallelWalk implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 1024;
+    // Marks the end of a traversal in the queue
+    private static final Entry END = new Entry(null, false, false);
+
+    private final int depth;
+    private final ExecutorService listers;
+
+    /**
+     * Entry of a directory: a file, a directory or a path which can't be read.
+     */
+    private static class Entry {
+        private final Path path;
+        private final boolean directory;
+        private final boolean failed;
+        // Listing of a directory started ahead, null if it is listed when reached
+        private CompletableFuture<List<Entry>> children;
+
+        Entry(Path path, boolean directory, boolean failed) {
+            this.path = path;
+            this.directory = directory;
+            this.failed = failed;
+        }
+    }
+
+    ParallelWalk(int depth, int requests) {
+        if (depth < 0 || requests <= 0) {
+            throw new IllegalArgumentException("Expected non-negative depth and positive number of requests.");
+        }
+        this.depth = depth;
+        this.listers = Executors.newFixedThreadPool(requests);
+    }
+
+    private Entry entry(Path path, int ahead) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return new Entry(path, false, true);
+        }
+        Entry entry = new Entry(path, attributes.isDirectory(), false);
+        if (entry.directory && ahead <= depth) {
+            try {
+                entry.children = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return list(path, ahead);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, listers);
+            } catch (RejectedExecutionException e) {
+                // The walk is closed, the directory is listed when reached
+            }
+        }
+        return entry;
+    }
+
+    private List<Entry> list(Path directory, int ahead) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                entries.add(entry(path, ahead + 1));
+            }
+        } catch (DirectoryIteratorException e) {
+            // The directory is reported as unreadable, as when it can't be opened
+            throw e.getCause();
+        }
+        return entries;
+    }
+
+    private void emit(Entry entry, BlockingQueue<Entry> queue) throws InterruptedException {
+        if (!entry.directory || entry.failed) {
+            queue.put(entry);
+            return;
+        }
+        List<Entry> children;
+        try {
+            children = entry.children == null ? list(entry.path, 0) : entry.children.get();
+        } catch (IOException | ExecutionException e) {
+            queue.put(new Entry(entry.path, false, true));
+            return;
+        }
+        for (Entry child : children) {
+            emit(child, queue);
+        }
+    }
+
+    /**
+     * Visits all files under the given path in pre-order, as {@link Files#walkFileTree} without following links does.
+     *
+     * @param root path to walk
+     * @param visitor visitor of files and paths which can't be read
+     * @return {@code false} if the visitor terminated the walk
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    boolean walk(Path root, FileVisitor visitor) throws InterruptedException {
+        BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        // Set before the producer is interrupted, the queue is not read after that
+        AtomicBoolean stopped = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                try {
+                    // The root itself is listed when reached
+                    emit(entry(root, depth + 1), queue);
+                } finally {
+                    if (!stopped.get()) {
+                        queue.put(END);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // The walk is terminated
+            }
+        });
+        producer.start();
+        try {
+            for (Entry entry; (entry = queue.take()) != END; ) {
+                FileVisitResult result = entry.failed ? visitor.visitFileFailed(entry.path, null)
+                        : visitor.visitFile(entry.path, null);
+                if (result == TERMINATE) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            stopped.set(true);
+            producer.interrupt();
+            producer.join();
+        }
+    }
+
+    @Override
+    public void close() {
+        listers.shutdownNow();
+    }
+}
@@ -9,21 +9,30 @@ import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Objects;
 
 public class RecursiveWalk {
     private static Path inputPath;
     private static Path outputPath;
+    // Levels of directories listed ahead and number of listing threads, no parallel listing if requests is 0
+    private static int depth;
+    private static int requests;
 
     private static void walk() {
         try (BufferedReader reader = Files.newBufferedReader(inputPath, StandardCharsets.UTF_8)) {
             try (BufferedWriter writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8)) {
                 String directory;
                 FileVisitor visitor = new FileVisitor(writer);
-                try {
+                try (ParallelWalk parallelWalk = requests > 0 ? new ParallelWalk(depth, requests) : null) {
                     while ((directory = reader.readLine()) != null) {
                         try {
                             Path path = Paths.get(directory);
-                            Files.walkFileTree(path, visitor);
+                            if (parallelWalk == null) {
+                                Files.walkFileTree(path, visitor);
+                            } else {
+                                parallelWalk.walk(path, visitor);
+                            }
                         } catch (InvalidPathException e) {
                             writer.write(String.format("%08x %s", 0, directory));
                             writer.newLine();
@@ -31,6 +40,9 @@ public class RecursiveWalk {
                     }
                 } catch (IOException e) {
                     System.err.println("Error while count hashes: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    System.err.println("Walk interrupted");
+                    Thread.currentThread().interrupt();
                 }
             } catch (FileNotFoundException e) {
                 System.err.println("Output file not found" + e.getMessage());
@@ -48,10 +60,31 @@ public class RecursiveWalk {
         }
     }
 
+    /**
+     * Writes hashes of files under paths listed in the input file.
+     * With 4 arguments, directories are listed ahead on {@code requests} threads, see {@link ParallelWalk}.
+     *
+     * @param args {@code <input file> <output file> [<depth> <requests>]}
+     */
     public static void main(String[] args) {
-        if (args.length != 2 || args[0] == null || args[1] == null) {
-            System.err.println("Expected 2 not-null arguments: <input file> and <output file>");
+        if (args == null || args.length != 2 && args.length != 4 || Arrays.stream(args).anyMatch(Objects::isNull)) {
+            System.err.println("Expected 2 or 4 not-null arguments: <input file> <output file> [<depth> <requests>]");
         } else {
+            depth = 0;
+            requests = 0;
+            if (args.length == 4) {
+                try {
+                    depth = Integer.parseInt(args[2]);
+                    requests = Integer.parseInt(args[3]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Incorrect number: " + e.getMessage());
+                    return;
+                }
+                if (depth < 0 || requests <= 0) {
+                    System.err.println("Expected non-negative depth and positive number of requests");
+                    return;
+                }
+            }
             try {
                 inputPath = Paths.get(args[0]);
             } catch (InvalidPathException e) {
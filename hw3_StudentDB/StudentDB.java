@@ -1,8 +1,11 @@
 package ru.ifmo.rain.kramer.student;
 
+import info.kgeorgiy.java.advanced.concurrent.ListIP;
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 import info.kgeorgiy.java.advanced.student.Group;
 import info.kgeorgiy.java.advanced.student.Student;
 import info.kgeorgiy.java.advanced.student.StudentGroupQuery;
+import ru.ifmo.rain.kramer.concurrent.IterativeParallelism;
 
 import java.util.*;
 import java.util.function.*;
@@ -18,8 +21,103 @@ public class StudentDB implements StudentGroupQuery {
 
     private static final Comparator<Student> cmp = Comparator.comparing(Student::getLastName).thenComparing(Student::getFirstName).thenComparingInt(Student::getId);
 
+    private static final int DEFAULT_THRESHOLD = 10_000;
+
+    private final ListIP parallelism;
+    private final int threads;
+    private final int threshold;
+
+    /**
+     * Creates a database which runs all queries sequentially.
+     */
+    public StudentDB() {
+        this.parallelism = null;
+        this.threads = 1;
+        this.threshold = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Creates a database which runs queries on at least 10 000 students in parallel.
+     *
+     * @param parallelism parallel engine
+     * @param threads number of threads to use
+     * @see #StudentDB(ListIP, int, int)
+     */
+    public StudentDB(ListIP parallelism, int threads) {
+        this(parallelism, threads, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a database which filters, maps, sorts and groups at least {@code threshold} students
+     * in parallel. Results are the same as of the sequential queries, in the same order.
+     * Sorting and grouping are parallel only if the engine is an {@link IterativeParallelism}.
+     *
+     * @param parallelism parallel engine
+     * @param threads number of threads to use
+     * @param threshold minimal number of students for which queries are run in parallel
+     */
+    public StudentDB(ListIP parallelism, int threads, int threshold) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be at least 1.");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("The threshold must be non-negative.");
+        }
+        this.parallelism = Objects.requireNonNull(parallelism);
+        this.threads = threads;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a database which runs queries on at least 10 000 students on the given mapper.
+     *
+     * @param mapper mapper to run chunks of queries on
+     * @param threads number of chunks to split students into
+     */
+    public StudentDB(ParallelMapper mapper, int threads) {
+        this(mapper, threads, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a database which runs queries on at least {@code threshold} students on the given mapper.
+     *
+     * @param mapper mapper to run chunks of queries on
+     * @param threads number of chunks to split students into
+     * @param threshold minimal number of students for which queries are run in parallel
+     */
+    public StudentDB(ParallelMapper mapper, int threads, int threshold) {
+        this(new IterativeParallelism(mapper), threads, threshold);
+    }
+
+    private interface ParallelQuery<R> {
+        R run(ListIP parallelism) throws InterruptedException;
+    }
+
+    private <R> R query(Collection<Student> students, ParallelQuery<R> parallel, Supplier<R> sequential) {
+        return parallelism != null && students.size() >= threshold ? runParallel(parallel, sequential) : sequential.get();
+    }
+
+    // An interrupted query falls back to the sequential path and restores the interrupt flag
+    private <R> R runParallel(ParallelQuery<R> parallel, Supplier<R> sequential) {
+        try {
+            return parallel.run(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return sequential.get();
+        }
+    }
+
+    private <R> R sortingQuery(Collection<Student> students, ParallelQuery<R> parallel, Supplier<R> sequential) {
+        return parallelism instanceof IterativeParallelism ? query(students, parallel, sequential) : sequential.get();
+    }
+
+    private static List<Student> asList(Collection<Student> students) {
+        return students instanceof List ? (List<Student>) students : new ArrayList<>(students);
+    }
+
     private <T extends Collection<String>> T mappedStudentsCollection(List<Student> students, Function<Student, String> mapping, Supplier<T> collection) {
-        return students.stream().map(mapping).collect(Collectors.toCollection(collection));
+        return query(students, ip -> ip.map(threads, students, mapping).stream().collect(Collectors.toCollection(collection)),
+                () -> students.stream().map(mapping).collect(Collectors.toCollection(collection)));
     }
 
     private List<String> mappedStudentsList(List<Student> students, Function<Student, String> mapping) {
@@ -53,11 +151,13 @@ public class StudentDB implements StudentGroupQuery {
 
     @Override
     public String getMinStudentFirstName(List<Student> students) {
-        return students.stream().min(Student::compareTo).map(Student::getFirstName).orElse("");
+        return students.isEmpty() ? EMPTY_STRING : query(students, ip -> ip.minimum(threads, students, Student::compareTo),
+                () -> students.stream().min(Student::compareTo).orElseThrow()).getFirstName();
     }
 
     private List<Student> sortStudents(Collection<Student> students, Comparator<Student> comparator) {
-        return students.stream().sorted(comparator).collect(Collectors.toList());
+        return sortingQuery(students, ip -> new ArrayList<>(((IterativeParallelism) ip).sort(threads, asList(students), comparator)),
+                () -> students.stream().sorted(comparator).collect(Collectors.toList()));
     }
 
     @Override
@@ -70,28 +170,43 @@ public class StudentDB implements StudentGroupQuery {
         return sortStudents(students, cmp);
     }
 
-    private List<Student> findStudents(Collection<Student> students, Function<Student, Stream<Student>> function) {
-        return students.stream().flatMap(function).sorted(cmp).collect(Collectors.toList());
+    private Stream<Student> filteredStudents(Collection<Student> students, Predicate<Student> predicate) {
+        return query(students, ip -> ip.filter(threads, asList(students), predicate).stream(), () -> students.stream().filter(predicate));
+    }
+
+    private List<Student> findStudents(Collection<Student> students, Predicate<Student> predicate) {
+        return filteredStudents(students, predicate).sorted(cmp).collect(Collectors.toList());
     }
 
     @Override
     public List<Student> findStudentsByFirstName(Collection<Student> students, String firstName) {
-        return findStudents(students, student -> firstName.equals(student.getFirstName()) ? Stream.of(student) : Stream.empty());
+        return findStudents(students, student -> firstName.equals(student.getFirstName()));
     }
 
     @Override
     public List<Student> findStudentsByLastName(Collection<Student> students, String lastName) {
-        return findStudents(students, student -> lastName.equals(student.getLastName()) ? Stream.of(student) : Stream.empty());
+        return findStudents(students, student -> lastName.equals(student.getLastName()));
     }
 
     @Override
     public List<Student> findStudentsByGroup(Collection<Student> students, String group) {
-        return findStudents(students, student -> group.equals(student.getGroup()) ? Stream.of(student) : Stream.empty());
+        return findStudents(students, student -> group.equals(student.getGroup()));
+    }
+
+    /**
+     * Creates an index of students for prefix and range queries on their names.
+     * Results of the index are ordered as results of {@link #findStudentsByLastName}, duplicates included.
+     *
+     * @param students students to index
+     * @return name index
+     */
+    public StudentIndex indexByName(Collection<Student> students) {
+        return new StudentIndex(students, cmp);
     }
 
     @Override
     public Map<String, String> findStudentNamesByGroup(Collection<Student> students, String group) {
-        return students.stream().flatMap(student -> group.equals(student.getGroup()) ? Stream.of(student) : Stream.empty()).
+        return filteredStudents(students, student -> group.equals(student.getGroup())).
                 collect(Collectors.toMap(Student::getLastName, Student::getFirstName, BinaryOperator.minBy(String::compareTo)));
     }
 
@@ -101,7 +216,9 @@ public class StudentDB implements StudentGroupQuery {
     }
 
     private Stream<Map.Entry<String, List<Student>>> getGroupsStream(Collection<Student> students, Supplier<Map<String, List<Student>>> generator) {
-        return students.stream().collect(Collectors.groupingBy(Student::getGroup, generator, Collectors.toList())).entrySet().stream();
+        return sortingQuery(students, ip -> ((IterativeParallelism) ip).groupBy(threads, asList(students), Student::getGroup).entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, generator)),
+                () -> students.stream().collect(Collectors.groupingBy(Student::getGroup, generator, Collectors.toList()))).entrySet().stream();
     }
 
     private List<Group> getGroupsBy(Comparator<? super Student> comparator, Stream<Map.Entry<String, List<Student>>> groupStream) {
@@ -0,0 +1,167 @@
+package ru.ifmo.rain.kramer.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+
+/**
+ * Immutable index of students sorted by names, answering prefix and range queries on last and first names.
+ * Queries on last names take {@code O(log n + k)}, queries on first names take {@code O(log n + k log k)}
+ * since their results are re-sorted by last name. Results are ordered by last name, first name and id,
+ * and students equal in that order keep their order in the collection, as in the sorting queries of
+ * {@link StudentDB}. Every student of the collection is indexed, duplicates included.
+ */
+public class StudentIndex {
+    private static final String EMPTY_STRING = "";
+    // Appending it gives the least string greater than the given one
+    private static final String LEAST_SUFFIX = "\0";
+
+    private final Comparator<Student> order;
+    private final Index byLastName;
+    private final Index byFirstName;
+
+    StudentIndex(Collection<Student> students, Comparator<Student> order) {
+        this.order = order;
+        byLastName = new Index(students, order);
+        byFirstName = new Index(students, Comparator.comparing(Student::getFirstName)
+                .thenComparing(Student::getLastName).thenComparingInt(Student::getId));
+    }
+
+    // Students stably sorted by the comparator
+    private static class Index {
+        private final List<Student> students;
+        private final Comparator<Student> comparator;
+
+        Index(Collection<Student> students, Comparator<Student> comparator) {
+            this.students = new ArrayList<>(students);
+            this.students.sort(comparator);
+            this.comparator = comparator;
+        }
+
+        // Index of the first student not less than the probe
+        int lowerBound(Student probe) {
+            int low = 0;
+            int high = students.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (comparator.compare(students.get(middle), probe) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        List<Student> between(int from, int to) {
+            return from < to ? students.subList(from, to) : List.of();
+        }
+    }
+
+    // The least student with the given name in both indices
+    private static Student lastNameProbe(String lastName) {
+        return new Student(Integer.MIN_VALUE, EMPTY_STRING, lastName, EMPTY_STRING);
+    }
+
+    private static Student firstNameProbe(String firstName) {
+        return new Student(Integer.MIN_VALUE, firstName, EMPTY_STRING, EMPTY_STRING);
+    }
+
+    // The least string greater than all strings with the prefix, null if there is none
+    private static String prefixEnd(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char c = prefix.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+
+    private interface Probe {
+        Student of(String name);
+    }
+
+    private static List<Student> range(Index index, Probe probe,
+                                       String from, boolean fromInclusive, String to, boolean toInclusive) {
+        Objects.requireNonNull(from);
+        int lower = index.lowerBound(probe.of(fromInclusive ? from : from + LEAST_SUFFIX));
+        if (to == null) {
+            return index.between(lower, index.students.size());
+        }
+        if (from.compareTo(to) > 0) {
+            throw new IllegalArgumentException("Lower bound " + from + " is greater than upper bound " + to);
+        }
+        return index.between(lower, index.lowerBound(probe.of(toInclusive ? to + LEAST_SUFFIX : to)));
+    }
+
+    private List<Student> sorted(List<Student> students) {
+        List<Student> result = new ArrayList<>(students);
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * Returns number of indexed students.
+     *
+     * @return number of students
+     */
+    public int size() {
+        return byLastName.students.size();
+    }
+
+    /**
+     * Returns students whose last names start with the prefix.
+     *
+     * @param prefix prefix of last names
+     * @return matching students
+     */
+    public List<Student> findByLastNamePrefix(String prefix) {
+        return new ArrayList<>(range(byLastName, StudentIndex::lastNameProbe, prefix, true, prefixEnd(prefix), false));
+    }
+
+    /**
+     * Returns students whose last names are between the given bounds, as {@link NavigableSet#subSet} does.
+     *
+     * @param from lower bound of last names
+     * @param fromInclusive whether last names equal to {@code from} match
+     * @param to upper bound of last names
+     * @param toInclusive whether last names equal to {@code to} match
+     * @return matching students
+     * @throws IllegalArgumentException if {@code from} is greater than {@code to}
+     */
+    public List<Student> findByLastNameRange(String from, boolean fromInclusive, String to, boolean toInclusive) {
+        return new ArrayList<>(range(byLastName, StudentIndex::lastNameProbe, from, fromInclusive,
+                Objects.requireNonNull(to), toInclusive));
+    }
+
+    /**
+     * Returns students whose first names start with the prefix.
+     *
+     * @param prefix prefix of first names
+     * @return matching students
+     */
+    public List<Student> findByFirstNamePrefix(String prefix) {
+        return sorted(range(byFirstName, StudentIndex::firstNameProbe, prefix, true, prefixEnd(prefix), false));
+    }
+
+    /**
+     * Returns students whose first names are between the given bounds, as {@link NavigableSet#subSet} does.
+     *
+     * @param from lower bound of first names
+     * @param fromInclusive whether first names equal to {@code from} match
+     * @param to upper bound of first names
+     * @param toInclusive whether first names equal to {@code to} match
+     * @return matching students
+     * @throws IllegalArgumentException if {@code from} is greater than {@code to}
+     */
+    public List<Student> findByFirstNameRange(String from, boolean fromInclusive, String to, boolean toInclusive) {
+        return sorted(range(byFirstName, StudentIndex::firstNameProbe, from, fromInclusive,
+                Objects.requireNonNull(to), toInclusive));
+    }
+}
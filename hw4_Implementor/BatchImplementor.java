@@ -0,0 +1,365 @@
+package ru.ifmo.rain.kramer.implementor;
+
+import info.kgeorgiy.java.advanced.implementor.ImplerException;
+
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+/**
+ * @author Kramer Konstantin
+ * Generates implementations of every abstract class and interface of a <code>.jar</code> file or a package
+ * and packs them into one <code>.jar</code> file.
+ * Sources are generated and compiled on a bounded pool of worker threads; compilation runs in batches,
+ * one compiler invocation per batch.
+ * Member, local and anonymous classes are skipped, as {@link Implementor} names implementations by simple name.
+ */
+public class BatchImplementor {
+    /**
+     * File name extension for source file.
+     */
+    private final static String JAVA = ".java";
+    /**
+     * File name extension for class file.
+     */
+    private final static String CLASS = ".class";
+    /**
+     * File name extension for jar file.
+     */
+    private final static String JAR = ".jar";
+    /**
+     * Prefix of the temporary directory.
+     */
+    private final static String TEMP = "temp";
+    /**
+     * Name of the module descriptor class.
+     */
+    private final static String MODULE_INFO = "module-info";
+    /**
+     * Maximal number of source files compiled by one compiler invocation.
+     */
+    private final static int BATCH_SIZE = 256;
+
+    /**
+     * Number of worker threads.
+     */
+    private final int threads;
+    /**
+     * Cache of generated sources, <code>null</code> if caching is disabled.
+     */
+    private final ImplementorCache cache;
+
+    /**
+     * Creates batch implementor using given number of worker threads.
+     *
+     * @param threads number of worker threads
+     * @param cache cache of generated sources, <code>null</code> to disable caching
+     */
+    public BatchImplementor(int threads, ImplementorCache cache) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be at least 1.");
+        }
+        this.threads = threads;
+        this.cache = cache;
+    }
+
+    /**
+     * Converts path of a class file to binary class name.
+     *
+     * @param path relative path of the class file, separated by <code>separator</code>
+     * @param separator name separator
+     * @return binary class name
+     */
+    private static String toClassName(String path, String separator) {
+        return path.substring(0, path.length() - CLASS.length()).replace(separator, ".");
+    }
+
+    /**
+     * Returns names of all classes in a <code>.jar</code> file.
+     *
+     * @param jar target <code>.jar</code> file
+     * @return binary names of classes
+     * @throws IOException if the file can't be read
+     */
+    private static List<String> getJarClassNames(Path jar) throws IOException {
+        try (var file = new JarFile(jar.toFile())) {
+            return file.stream().map(ZipEntry::getName).filter(n -> n.endsWith(CLASS))
+                    .map(n -> toClassName(n, "/")).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns names of all classes in a class path directory.
+     *
+     * @param directory class path directory
+     * @return binary names of classes
+     * @throws IOException if the directory can't be read
+     */
+    private static List<String> getDirectoryClassNames(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(f -> f.toString().endsWith(CLASS))
+                    .map(f -> toClassName(directory.relativize(f).toString(), File.separator))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Loads classes which can be implemented.
+     * Classes which can't be loaded or rejected by {@link Implementor#validateClass(Class)} are skipped.
+     *
+     * @param names binary names of classes
+     * @param loader class loader to use
+     * @return abstract classes and interfaces to implement
+     */
+    private static List<Class<?>> loadImplementable(List<String> names, ClassLoader loader) {
+        var validator = new Implementor();
+        var classes = new ArrayList<Class<?>>();
+        for (var name : names) {
+            if (name.endsWith(MODULE_INFO)) {
+                continue;
+            }
+            try {
+                var clazz = Class.forName(name, false, loader);
+                if (Modifier.isAbstract(clazz.getModifiers()) && clazz.getEnclosingClass() == null
+                        && !clazz.isSynthetic()) {
+                    validator.validateClass(clazz);
+                    classes.add(clazz);
+                }
+            } catch (ClassNotFoundException | LinkageError | ImplerException ignored) {
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Finds classes to implement in a <code>.jar</code> file or in a package of the class path.
+     *
+     * Only class path entries are scanned: JDK packages can't be implemented, as classes can't be compiled into them.
+     *
+     * @param source package prefix of the class path, e.g. <code>info.kgeorgiy.java.advanced</code>
+     * @param loader class loader used for the package prefix
+     * @return abstract classes and interfaces to implement
+     * @throws IOException if class path entries can't be read
+     */
+    private static List<Class<?>> findClasses(String source, ClassLoader loader) throws IOException {
+        var names = new ArrayList<String>();
+        for (var entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            var path = Paths.get(entry);
+            if (Files.isDirectory(path)) {
+                names.addAll(getDirectoryClassNames(path));
+            } else if (entry.endsWith(JAR) && Files.isRegularFile(path)) {
+                names.addAll(getJarClassNames(path));
+            }
+        }
+        return loadImplementable(names.stream().filter(n -> n.startsWith(source + "."))
+                .collect(Collectors.toList()), loader);
+    }
+
+    /**
+     * Runs tasks on the pool and returns their results in order.
+     *
+     * @param pool pool of worker threads
+     * @param tasks tasks to run
+     * @param <T> type of results
+     * @return results of tasks
+     * @throws ImplerException if a task failed or the thread was interrupted
+     */
+    private static <T> List<T> invokeAll(ExecutorService pool, List<Callable<T>> tasks) throws ImplerException {
+        try {
+            var results = new ArrayList<T>();
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImplerException("Implementation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new ImplerException("Worker failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Compiles source files with one compiler invocation.
+     *
+     * @param files source files
+     * @param classPath class path for compilation
+     * @param output stream for compiler diagnostics
+     * @return <code>true</code> if compilation succeeded, <code>false</code> otherwise
+     * @throws ImplerException if there is no java compiler
+     */
+    private static boolean compile(List<Path> files, String classPath, OutputStream output) throws ImplerException {
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new ImplerException("Java compiler is not available");
+        }
+        var args = new ArrayList<String>(List.of("-nowarn", "-cp", classPath));
+        files.forEach(f -> args.add(f.toString()));
+        return compiler.run(null, output, output, args.toArray(String[]::new)) == 0;
+    }
+
+    /**
+     * Compiles a batch of source files.
+     * If the batch doesn't compile, its files are compiled one by one and files with errors are skipped.
+     *
+     * @param batch source files
+     * @param classPath class path for compilation
+     * @param failures messages about skipped files
+     * @return number of compiled files
+     * @throws ImplerException if there is no java compiler
+     */
+    private static int compileBatch(List<Path> batch, String classPath, Queue<String> failures) throws ImplerException {
+        if (compile(batch, classPath, OutputStream.nullOutputStream())) {
+            return batch.size();
+        }
+        var compiled = 0;
+        for (var file : batch) {
+            var diagnostics = new ByteArrayOutputStream();
+            if (compile(List.of(file), classPath, diagnostics)) {
+                compiled++;
+            } else {
+                failures.add(file.getFileName() + ": compilation failed" + System.lineSeparator() + diagnostics);
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Packs all class files of a directory into a <code>.jar</code> file.
+     *
+     * @param root directory with class files
+     * @param jar target <code>.jar</code> file
+     * @throws IOException if an error occurred when reading or writing files
+     */
+    private static void createJar(Path root, Path jar) throws IOException {
+        var manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        List<Path> classes;
+        try (Stream<Path> files = Files.walk(root)) {
+            classes = files.filter(f -> f.toString().endsWith(CLASS)).sorted().collect(Collectors.toList());
+        }
+        try (var writer = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+            for (var file : classes) {
+                writer.putNextEntry(new ZipEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, writer);
+            }
+        }
+    }
+
+    /**
+     * Generates implementations of all abstract classes and interfaces of the source and
+     * packs them into one <code>.jar</code> file. Skipped classes are reported to {@link System#err} at once.
+     *
+     * @param source path to a <code>.jar</code> file or package prefix of the class path
+     * @param jar target <code>.jar</code> file
+     * @return number of implemented classes
+     * @throws ImplerException if classes can't be found, an I/O error occurred or the thread was interrupted
+     * @see #implementAll(String, Path, List)
+     */
+    public int implementAll(String source, Path jar) throws ImplerException {
+        var failures = new ArrayList<String>();
+        var implemented = implementAll(source, jar, failures);
+        if (!failures.isEmpty()) {
+            System.err.println("Skipped " + failures.size() + " classes:");
+            failures.forEach(System.err::println);
+        }
+        return implemented;
+    }
+
+    /**
+     * Generates implementations of all abstract classes and interfaces of the source and
+     * packs them into one <code>.jar</code> file. Classes which can't be implemented or compiled are skipped.
+     *
+     * @param source path to a <code>.jar</code> file or package prefix of the class path
+     * @param jar target <code>.jar</code> file
+     * @param failures list to add messages about skipped classes to, in order of class names
+     * @return number of implemented and compiled classes
+     * @throws ImplerException if no classes are found, an I/O error occurred or the thread was interrupted
+     */
+    public int implementAll(String source, Path jar, List<String> failures) throws ImplerException {
+        var classPath = System.getProperty("java.class.path");
+        var sourceJar = source.endsWith(JAR) ? Paths.get(source) : null;
+        Path root;
+        try {
+            root = Files.createTempDirectory(jar.toAbsolutePath().getParent(), TEMP);
+        } catch (IOException e) {
+            throw new ImplerException("Can't create a temporary directory.", e);
+        }
+        var pool = Executors.newFixedThreadPool(threads);
+        try (var loader = sourceJar == null ? null
+                : new URLClassLoader(new URL[]{sourceJar.toUri().toURL()}, getClass().getClassLoader())) {
+            List<Class<?>> classes;
+            if (sourceJar != null) {
+                classPath = sourceJar + File.pathSeparator + classPath;
+                classes = loadImplementable(getJarClassNames(sourceJar), loader);
+            } else {
+                classes = findClasses(source, getClass().getClassLoader());
+            }
+            if (classes.isEmpty()) {
+                throw new ImplerException("No classes to implement found in " + source);
+            }
+
+            var skipped = new ConcurrentLinkedQueue<String>();
+            var files = invokeAll(pool, classes.stream().<Callable<Path>>map(clazz -> () -> {
+                try {
+                    new Implementor(cache).implement(clazz, root);
+                    return root.resolve(clazz.getPackageName().replace('.', File.separatorChar))
+                            .resolve(clazz.getSimpleName() + "Impl" + JAVA);
+                } catch (ImplerException e) {
+                    skipped.add(clazz.getName() + ": " + e.getMessage());
+                    return null;
+                }
+            }).collect(Collectors.toList())).stream().filter(Objects::nonNull).collect(Collectors.toList());
+
+            var batchSize = Math.max(1, Math.min(BATCH_SIZE, (files.size() + threads - 1) / threads));
+            var batches = new ArrayList<Callable<Integer>>();
+            var compileClassPath = root + File.pathSeparator + classPath;
+            for (var i = 0; i < files.size(); i += batchSize) {
+                var batch = files.subList(i, Math.min(files.size(), i + batchSize));
+                batches.add(() -> compileBatch(batch, compileClassPath, skipped));
+            }
+            var compiled = invokeAll(pool, batches).stream().mapToInt(Integer::intValue).sum();
+            createJar(root, jar);
+            skipped.stream().sorted().forEach(failures::add);
+            return compiled;
+        } catch (MalformedURLException e) {
+            throw new ImplerException("Incorrect path to jar: " + source, e);
+        } catch (IOException e) {
+            throw new ImplerException("Unable to read classes or write to JAR file", e);
+        } finally {
+            pool.shutdownNow();
+            try (Stream<Path> files = Files.walk(root)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            } catch (IOException e) {
+                System.err.println("Can't delete the temporary directory.");
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.ifmo.rain.kramer.implementor;
+
+import info.kgeorgiy.java.advanced.implementor.ImplerException;
+import info.kgeorgiy.java.advanced.implementor.JarImpler;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+/**
+ * @author Kramer Konstantin
+ * Implementation of {@link JarImpler} interface which emits bytecode of the generated class directly,
+ * without generating source code and running the java compiler.
+ * Generated class is equivalent to the one compiled from {@link Implementor#implement(Class, Path)} output:
+ * its constructors call <code>super</code> and its methods return default values.
+ */
+public class BytecodeImplementor extends Implementor {
+
+    /**
+     * Suffix of generated class name.
+     */
+    private final static String CLASS_NAME_SUFFIX = "Impl";
+    /**
+     * File name extension for class file.
+     */
+    private final static String CLASS = ".class";
+    /**
+     * Access modifiers kept by generated constructors and methods.
+     */
+    private final static int ACCESS_MASK = Modifier.PUBLIC | Modifier.PROTECTED;
+
+    /**
+     * Creates new instance of {@link BytecodeImplementor}
+     */
+    public BytecodeImplementor() {
+        this(null);
+    }
+
+    /**
+     * Creates new instance of {@link BytecodeImplementor} which reuses artifacts from the given cache.
+     *
+     * @param cache cache of generated artifacts, <code>null</code> to disable caching
+     */
+    public BytecodeImplementor(ImplementorCache cache) {
+        super(cache);
+    }
+
+    /**
+     * Returns internal name of the generated class, e.g. <code>java/util/ListImpl</code>.
+     *
+     * @param clazz target type token
+     * @return internal name of the generated class
+     */
+    private String getImplName(Class<?> clazz) {
+        var packageName = clazz.getPackageName();
+        var prefix = packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/";
+        return prefix + clazz.getSimpleName() + CLASS_NAME_SUFFIX;
+    }
+
+    /**
+     * Generates content of the <code>class</code> file implementing target type.
+     *
+     * @param clazz target type token
+     * @return bytes of the <code>class</code> file
+     * @throws ImplerException if there are no callable constructors in the target class
+     * @throws IOException if an error occurred when writing bytecode
+     */
+    byte[] generateClass(Class<?> clazz) throws ImplerException, IOException {
+        ClassFileWriter writer;
+        if (clazz.isInterface()) {
+            writer = new ClassFileWriter(getImplName(clazz), ClassFileWriter.getInternalName(Object.class),
+                    ClassFileWriter.getInternalName(clazz));
+            writer.addConstructor(Modifier.PUBLIC, new Class<?>[0], new Class<?>[0], false);
+        } else {
+            writer = new ClassFileWriter(getImplName(clazz), ClassFileWriter.getInternalName(clazz));
+            for (var constructor : getCallableConstructors(clazz)) {
+                writer.addConstructor(constructor.getModifiers() & ACCESS_MASK, constructor.getParameterTypes(),
+                        constructor.getExceptionTypes(), constructor.isAnnotationPresent(Deprecated.class));
+            }
+        }
+        for (var method : getAbstractMethods(clazz)) {
+            writer.addDefaultMethod(method.getModifiers() & ACCESS_MASK, method.getName(), method.getParameterTypes(),
+                    method.getReturnType(), method.getExceptionTypes(), method.isAnnotationPresent(Deprecated.class));
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Generates bytecode of a class denoted by the provided type token and creates a <code>.jar</code>
+     * file which contains that class in the provided path.
+     *
+     * @param clazz target type token
+     * @param path target path for the output <code>jar</code> file
+     * @throws ImplerException if an internal {@link IOException} has occurred or there are no callable
+     * constructors in the target class
+     */
+    @Override
+    void generateJar(Class<?> clazz, Path path) throws ImplerException {
+        var manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        try (var writer = new JarOutputStream(Files.newOutputStream(path), manifest)) {
+            var bytes = generateClass(clazz);
+            writer.putNextEntry(new ZipEntry(getImplName(clazz) + CLASS));
+            writer.write(bytes);
+        } catch (IOException e) {
+            throw new ImplerException("Unable to write to JAR file", e);
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package ru.ifmo.rain.kramer.implementor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Kramer Konstantin
+ * Minimal writer of the <code>class</code> file format used by {@link BytecodeImplementor}.
+ * It supports only what generated implementations need: constructors calling <code>super</code>
+ * and methods returning default values. Generated code has no branches, so no stack map frames are written.
+ *
+ * @see "https://docs.oracle.com/javase/specs/jvms/se11/html/jvms-4.html"
+ */
+class ClassFileWriter {
+    /**
+     * Magic number of a <code>class</code> file.
+     */
+    private final static int MAGIC = 0xCAFEBABE;
+    /**
+     * Major version of a <code>class</code> file, Java 8.
+     */
+    private final static int MAJOR_VERSION = 52;
+
+    /**
+     * Constant pool tag of UTF-8 string.
+     */
+    private final static int CONSTANT_UTF8 = 1;
+    /**
+     * Constant pool tag of class reference.
+     */
+    private final static int CONSTANT_CLASS = 7;
+    /**
+     * Constant pool tag of method reference.
+     */
+    private final static int CONSTANT_METHOD_REF = 10;
+    /**
+     * Constant pool tag of name and type descriptor.
+     */
+    private final static int CONSTANT_NAME_AND_TYPE = 12;
+
+    /**
+     * Class access flag <code>ACC_SUPER</code>.
+     */
+    private final static int ACC_SUPER = 0x0020;
+
+    /**
+     * Opcode <code>aconst_null</code>.
+     */
+    private final static int ACONST_NULL = 0x01;
+    /**
+     * Opcode <code>iconst_0</code>.
+     */
+    private final static int ICONST_0 = 0x03;
+    /**
+     * Opcode <code>lconst_0</code>.
+     */
+    private final static int LCONST_0 = 0x09;
+    /**
+     * Opcode <code>fconst_0</code>.
+     */
+    private final static int FCONST_0 = 0x0b;
+    /**
+     * Opcode <code>dconst_0</code>.
+     */
+    private final static int DCONST_0 = 0x0e;
+    /**
+     * Opcode <code>iload</code>.
+     */
+    private final static int ILOAD = 0x15;
+    /**
+     * Opcode <code>lload</code>.
+     */
+    private final static int LLOAD = 0x16;
+    /**
+     * Opcode <code>fload</code>.
+     */
+    private final static int FLOAD = 0x17;
+    /**
+     * Opcode <code>dload</code>.
+     */
+    private final static int DLOAD = 0x18;
+    /**
+     * Opcode <code>aload</code>.
+     */
+    private final static int ALOAD = 0x19;
+    /**
+     * Opcode <code>ireturn</code>.
+     */
+    private final static int IRETURN = 0xac;
+    /**
+     * Opcode <code>lreturn</code>.
+     */
+    private final static int LRETURN = 0xad;
+    /**
+     * Opcode <code>freturn</code>.
+     */
+    private final static int FRETURN = 0xae;
+    /**
+     * Opcode <code>dreturn</code>.
+     */
+    private final static int DRETURN = 0xaf;
+    /**
+     * Opcode <code>areturn</code>.
+     */
+    private final static int ARETURN = 0xb0;
+    /**
+     * Opcode <code>return</code>.
+     */
+    private final static int RETURN = 0xb1;
+    /**
+     * Opcode <code>invokespecial</code>.
+     */
+    private final static int INVOKESPECIAL = 0xb7;
+    /**
+     * Opcode <code>wide</code>, needed to load locals with index above 255.
+     */
+    private final static int WIDE = 0xc4;
+
+    /**
+     * Name of constructors in the <code>class</code> file.
+     */
+    private final static String INIT = "<init>";
+    /**
+     * Descriptor of {@link Deprecated} annotation.
+     */
+    private final static String DEPRECATED_DESCRIPTOR = "Ljava/lang/Deprecated;";
+
+    /**
+     * Serialized entries of the constant pool.
+     */
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    /**
+     * Stream writing to {@link #poolBytes}.
+     */
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    /**
+     * Indices of already added constant pool entries.
+     */
+    private final Map<String, Integer> poolIndices = new HashMap<>();
+    /**
+     * Index of the next constant pool entry.
+     */
+    private int poolSize = 1;
+
+    /**
+     * Serialized methods.
+     */
+    private final ByteArrayOutputStream methodsBytes = new ByteArrayOutputStream();
+    /**
+     * Stream writing to {@link #methodsBytes}.
+     */
+    private final DataOutputStream methods = new DataOutputStream(methodsBytes);
+    /**
+     * Number of written methods.
+     */
+    private int methodsCount;
+
+    /**
+     * Constant pool index of the generated class.
+     */
+    private final int thisClass;
+    /**
+     * Internal name of the super class.
+     */
+    private final String superName;
+    /**
+     * Constant pool index of the super class.
+     */
+    private final int superClass;
+    /**
+     * Constant pool indices of implemented interfaces.
+     */
+    private final List<Integer> interfaces = new ArrayList<>();
+
+    /**
+     * Creates a writer of a public class.
+     *
+     * @param name internal name of the generated class
+     * @param superName internal name of the super class
+     * @param interfaceNames internal names of implemented interfaces
+     * @throws IOException if an error occurred when writing the constant pool
+     */
+    ClassFileWriter(String name, String superName, String... interfaceNames) throws IOException {
+        this.superName = superName;
+        thisClass = classConstant(name);
+        superClass = classConstant(superName);
+        for (var interfaceName : interfaceNames) {
+            interfaces.add(classConstant(interfaceName));
+        }
+    }
+
+    /**
+     * Returns internal name of a class, e.g. <code>java/lang/Object</code>.
+     *
+     * @param clazz target type token
+     * @return internal name of the class
+     */
+    static String getInternalName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
+    }
+
+    /**
+     * Returns field descriptor of a type, e.g. <code>I</code> or <code>Ljava/lang/String;</code>.
+     *
+     * @param clazz target type token
+     * @return descriptor of the type
+     */
+    static String getDescriptor(Class<?> clazz) {
+        if (clazz.isArray()) {
+            return getInternalName(clazz);
+        } else if (!clazz.isPrimitive()) {
+            return "L" + getInternalName(clazz) + ";";
+        } else if (clazz == boolean.class) {
+            return "Z";
+        } else if (clazz == byte.class) {
+            return "B";
+        } else if (clazz == char.class) {
+            return "C";
+        } else if (clazz == short.class) {
+            return "S";
+        } else if (clazz == int.class) {
+            return "I";
+        } else if (clazz == long.class) {
+            return "J";
+        } else if (clazz == float.class) {
+            return "F";
+        } else if (clazz == double.class) {
+            return "D";
+        }
+        return "V";
+    }
+
+    /**
+     * Returns method descriptor, e.g. <code>(ILjava/lang/String;)V</code>.
+     *
+     * @param parameters parameter types
+     * @param returnType return type
+     * @return descriptor of the method
+     */
+    private static String getDescriptor(Class<?>[] parameters, Class<?> returnType) {
+        var descriptor = new StringBuilder("(");
+        for (var parameter : parameters) {
+            descriptor.append(getDescriptor(parameter));
+        }
+        return descriptor.append(')').append(getDescriptor(returnType)).toString();
+    }
+
+    /**
+     * Returns number of local variable slots occupied by a value of the type.
+     *
+     * @param clazz target type token
+     * @return <code>2</code> for <code>long</code> and <code>double</code>, <code>1</code> otherwise
+     */
+    private static int getSize(Class<?> clazz) {
+        return clazz == long.class || clazz == double.class ? 2 : 1;
+    }
+
+    /**
+     * Adds UTF-8 string to the constant pool if absent.
+     *
+     * @param value target string
+     * @return index of the entry
+     * @throws IOException if an error occurred when writing the constant pool
+     */
+    private int utf8Constant(String value) throws IOException {
+        var index = poolIndices.get("U" + value);
+        if (index == null) {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(value);
+            index = register("U" + value);
+        }
+        return index;
+    }
+
+    /**
+     * Adds class reference to the constant pool if absent.
+     *
+     * @param name internal name of the class
+     * @return index of the entry
+     * @throws IOException if an error occurred when writing the constant pool
+     */
+    private int classConstant(String name) throws IOException {
+        var index = poolIndices.get("C" + name);
+        if (index == null) {
+            var nameIndex = utf8Constant(name);
+            pool.writeByte(CONSTANT_CLASS);
+            pool.writeShort(nameIndex);
+            index = register("C" + name);
+        }
+        return index;
+    }
+
+    /**
+     * Adds method reference to the constant pool if absent.
+     *
+     * @param owner internal name of the owner class
+     * @param name method name
+     * @param descriptor method descriptor
+     * @return index of the entry
+     * @throws IOException if an error occurred when writing the constant pool
+     */
+    private int methodConstant(String owner, String name, String descriptor) throws IOException {
+        var key = "M" + owner + "." + name + descriptor;
+        var index = poolIndices.get(key);
+        if (index == null) {
+            var classIndex = classConstant(owner);
+            var nameIndex = utf8Constant(name);
+            var descriptorIndex = utf8Constant(descriptor);
+            pool.writeByte(CONSTANT_NAME_AND_TYPE);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+            var nameAndType = register("N" + name + descriptor);
+            pool.writeByte(CONSTANT_METHOD_REF);
+            pool.writeShort(classIndex);
+            pool.writeShort(nameAndType);
+            index = register(key);
+        }
+        return index;
+    }
+
+    /**
+     * Remembers index of just written constant pool entry.
+     *
+     * @param key unique key of the entry
+     * @return index of the entry
+     */
+    private int register(String key) {
+        poolIndices.put(key, poolSize);
+        return poolSize++;
+    }
+
+    /**
+     * Writes instruction loading a local variable of the type.
+     *
+     * @param code target stream
+     * @param clazz type of the variable
+     * @param slot index of the variable
+     * @throws IOException if an error occurred when writing
+     */
+    private static void writeLoad(DataOutputStream code, Class<?> clazz, int slot) throws IOException {
+        int opcode;
+        if (!clazz.isPrimitive()) {
+            opcode = ALOAD;
+        } else if (clazz == long.class) {
+            opcode = LLOAD;
+        } else if (clazz == float.class) {
+            opcode = FLOAD;
+        } else if (clazz == double.class) {
+            opcode = DLOAD;
+        } else {
+            opcode = ILOAD;
+        }
+        if (slot > 0xff) {
+            code.writeByte(WIDE);
+            code.writeByte(opcode);
+            code.writeShort(slot);
+        } else {
+            code.writeByte(opcode);
+            code.writeByte(slot);
+        }
+    }
+
+    /**
+     * Adds a constructor which passes all its arguments to the super constructor.
+     *
+     * @param access access flags of the constructor
+     * @param parameters parameter types
+     * @param exceptions thrown exception types
+     * @param deprecated whether the constructor is marked {@link Deprecated}
+     * @throws IOException if an error occurred when writing
+     */
+    void addConstructor(int access, Class<?>[] parameters, Class<?>[] exceptions, boolean deprecated)
+            throws IOException {
+        var descriptor = getDescriptor(parameters, void.class);
+        var codeBytes = new ByteArrayOutputStream();
+        var code = new DataOutputStream(codeBytes);
+        code.writeByte(ALOAD);
+        code.writeByte(0);
+        var slot = 1;
+        for (var parameter : parameters) {
+            writeLoad(code, parameter, slot);
+            slot += getSize(parameter);
+        }
+        code.writeByte(INVOKESPECIAL);
+        code.writeShort(methodConstant(superName, INIT, descriptor));
+        code.writeByte(RETURN);
+        addMethod(access, INIT, descriptor, exceptions, deprecated, codeBytes.toByteArray(), slot, slot);
+    }
+
+    /**
+     * Adds a method which ignores its arguments and returns default value of the return type.
+     *
+     * @param access access flags of the method
+     * @param name method name
+     * @param parameters parameter types
+     * @param returnType return type
+     * @param exceptions thrown exception types
+     * @param deprecated whether the method is marked {@link Deprecated}
+     * @throws IOException if an error occurred when writing
+     */
+    void addDefaultMethod(int access, String name, Class<?>[] parameters, Class<?> returnType,
+                          Class<?>[] exceptions, boolean deprecated) throws IOException {
+        var locals = 1;
+        for (var parameter : parameters) {
+            locals += getSize(parameter);
+        }
+        byte[] code;
+        if (returnType == void.class) {
+            code = new byte[]{(byte) RETURN};
+        } else if (!returnType.isPrimitive()) {
+            code = new byte[]{ACONST_NULL, (byte) ARETURN};
+        } else if (returnType == long.class) {
+            code = new byte[]{LCONST_0, (byte) LRETURN};
+        } else if (returnType == float.class) {
+            code = new byte[]{FCONST_0, (byte) FRETURN};
+        } else if (returnType == double.class) {
+            code = new byte[]{DCONST_0, (byte) DRETURN};
+        } else {
+            code = new byte[]{ICONST_0, (byte) IRETURN};
+        }
+        addMethod(access, name, getDescriptor(parameters, returnType), exceptions, deprecated, code,
+                getSize(returnType), locals);
+    }
+
+    /**
+     * Writes <code>method_info</code> structure with <code>Code</code> attribute.
+     *
+     * @param access access flags of the method
+     * @param name method name
+     * @param descriptor method descriptor
+     * @param exceptions thrown exception types
+     * @param deprecated whether the method is marked {@link Deprecated}
+     * @param code bytecode of the method
+     * @param maxStack maximum depth of the operand stack
+     * @param maxLocals number of local variable slots
+     * @throws IOException if an error occurred when writing
+     */
+    private void addMethod(int access, String name, String descriptor, Class<?>[] exceptions, boolean deprecated,
+                           byte[] code, int maxStack, int maxLocals) throws IOException {
+        methods.writeShort(access);
+        methods.writeShort(utf8Constant(name));
+        methods.writeShort(utf8Constant(descriptor));
+        var attributes = 1 + (exceptions.length > 0 ? 1 : 0) + (deprecated ? 2 : 0);
+        methods.writeShort(attributes);
+
+        methods.writeShort(utf8Constant("Code"));
+        methods.writeInt(12 + code.length);
+        methods.writeShort(maxStack);
+        methods.writeShort(maxLocals);
+        methods.writeInt(code.length);
+        methods.write(code);
+        methods.writeShort(0);
+        methods.writeShort(0);
+
+        if (exceptions.length > 0) {
+            methods.writeShort(utf8Constant("Exceptions"));
+            methods.writeInt(2 + 2 * exceptions.length);
+            methods.writeShort(exceptions.length);
+            for (var exception : exceptions) {
+                methods.writeShort(classConstant(getInternalName(exception)));
+            }
+        }
+        if (deprecated) {
+            methods.writeShort(utf8Constant("Deprecated"));
+            methods.writeInt(0);
+            methods.writeShort(utf8Constant("RuntimeVisibleAnnotations"));
+            methods.writeInt(6);
+            methods.writeShort(1);
+            methods.writeShort(utf8Constant(DEPRECATED_DESCRIPTOR));
+            methods.writeShort(0);
+        }
+        methodsCount++;
+    }
+
+    /**
+     * Returns content of the <code>class</code> file.
+     *
+     * @return bytes of the <code>class</code> file
+     * @throws IOException if an error occurred when writing
+     */
+    byte[] toByteArray() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(0);
+        out.writeShort(MAJOR_VERSION);
+        out.writeShort(poolSize);
+        poolBytes.writeTo(out);
+        out.writeShort(Modifier.PUBLIC | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(interfaces.size());
+        for (var index : interfaces) {
+            out.writeShort(index);
+        }
+        out.writeShort(0);
+        out.writeShort(methodsCount);
+        methodsBytes.writeTo(out);
+        out.writeShort(0);
+        return bytes.toByteArray();
+    }
+}
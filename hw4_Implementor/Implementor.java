@@ -8,10 +8,13 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.jar.Attributes;
 import java.util.jar.JarOutputStream;
@@ -29,6 +32,18 @@ public class Implementor implements JarImpler {
      * File name extension for source file.
      */
     private final static String JAVA = "java";
+    /**
+     * File name extension for jar file.
+     */
+    private final static String JAR = "jar";
+    /**
+     * Name of the system property with the {@link ImplementorCache} directory used by {@link #main(String[])}.
+     */
+    private final static String CACHE_PROPERTY = "implementor.cache";
+    /**
+     * Algorithm used to compute fingerprints of implemented types.
+     */
+    private final static String DIGEST = "SHA-256";
     /**
      * Suffix of generated class name.
      */
@@ -82,6 +97,10 @@ public class Implementor implements JarImpler {
      * Dot token.
      */
     private final static String DOT = ".";
+    /**
+     * Varargs token.
+     */
+    private final static String VARARGS = "...";
     /**
      * Less token.
      */
@@ -156,10 +175,26 @@ public class Implementor implements JarImpler {
         this.className = clazz.getSimpleName() + CLASS_NAME_SUFFIX;
     }
 
+    /**
+     * Cache of generated artifacts, <code>null</code> if caching is disabled.
+     */
+    private final ImplementorCache cache;
+
     /**
      * Creates new instance of {@link Implementor}
      */
-    public Implementor() {}
+    public Implementor() {
+        this(null);
+    }
+
+    /**
+     * Creates new instance of {@link Implementor} which reuses artifacts from the given cache.
+     *
+     * @param cache cache of generated artifacts, <code>null</code> to disable caching
+     */
+    public Implementor(ImplementorCache cache) {
+        this.cache = cache;
+    }
 
     /**
      * Checks if a class can be extended.
@@ -175,7 +210,7 @@ public class Implementor implements JarImpler {
      * @param clazz target type token
      * @throws ImplerException if the class can't be extended
      */
-    private void validateClass(Class<?> clazz) throws ImplerException {
+    void validateClass(Class<?> clazz) throws ImplerException {
         if (clazz.isPrimitive() || clazz.isArray() || clazz == Enum.class || Modifier.isFinal(clazz.getModifiers())) {
             throw new ImplerException(String.format("Incorrect class: %s", clazz.getSimpleName()));
         }
@@ -222,98 +257,93 @@ public class Implementor implements JarImpler {
     }
 
     /**
-     * Writes implementation of constructors of given {@link Class} via specified
-     * {@link BufferedWriter}
+     * Returns constructors of given {@link Class} which can be called from the generated class.
      *
      * @param clazz target type token
-     * @param writer given {@link BufferedWriter}
+     * @return list of non-private constructors
      * @throws ImplerException if there is no callable constructor in the target class.
      */
-    private void generateConstructors(Class<?> clazz, BufferedWriter writer) throws ImplerException {
+    List<Constructor<?>> getCallableConstructors(Class<?> clazz) throws ImplerException {
         var constructors = Arrays.stream(clazz.getDeclaredConstructors())
                 .filter(c -> !Modifier.isPrivate(c.getModifiers())).collect(Collectors.toList());
         if (constructors.isEmpty()) {
             throw new ImplerException(String.format("Class %s has no callable constructors", clazz.getSimpleName()));
         }
-        for (var constructor : constructors) {
-            generateExecutable(constructor, writer);
-        }
+        return constructors;
     }
 
     /**
-     * A wrapper of {@link Method} for proper method comparing.
+     * Writes implementation of constructors of given {@link Class} via specified
+     * {@link BufferedWriter}
+     *
+     * @param clazz target type token
+     * @param writer given {@link BufferedWriter}
+     * @throws ImplerException if there is no callable constructor in the target class.
      */
-    private class CustomMethod {
-        /**
-         * Instance of the method.
-         */
-        private Method instance;
-        /**
-         * A flag that shows if we need to override the method.
-         * It is set to <code>true</code> if we met a <code>final</code> or just not <code>abstract</code> method in
-         * the <code>super</code> class.
-         * Otherwise, it is set to <code>false</code>.
-         */
-        private boolean isOverridden;
-
-        /**
-         * Constructor for the wrapper that receives instance and the flag.
-         *
-         * @param m target instance of {@link Method}
-         * @param isOverridden target flag
-         */
-        CustomMethod(Method m, boolean isOverridden) {
-            instance = m;
-            this.isOverridden = isOverridden;
+    private void generateConstructors(Class<?> clazz, BufferedWriter writer) throws ImplerException {
+        for (var constructor : getCallableConstructors(clazz)) {
+            generateExecutable(constructor, writer);
         }
+    }
 
-        /**
-         * Custom {@link Object#equals(Object)} method to compare two instances of {@link Method}.
-         * Methods are equal if:
-         * <ul>
-         *     <li>The other method is not <code>null</code></li>
-         *     <li>The other method's {@link #hashCode()} is the same</li>
-         * </ul>
-         *
-         * @param obj target instance
-         * @return <code>true</code> if instances are equal, <code>false</code> otherwise
-         */
+    /**
+     * Methods visible in a type and its supertypes, keyed by {@link #getSignature(Method)}.
+     * For every signature the method met first is kept: declared methods go first, then methods
+     * of interfaces in declaration order, then methods of the super class.
+     * Every type is resolved once and the result is shared by all implementations, so diamond
+     * interface hierarchies are not walked again.
+     */
+    private final static ClassValue<Map<String, Method>> SIGNATURES = new ClassValue<>() {
         @Override
-        public boolean equals(Object obj) {
-            if (obj == null) return false;
-            if (obj instanceof CustomMethod) {
-                return obj.hashCode() == hashCode();
+        protected Map<String, Method> computeValue(Class<?> type) {
+            var methods = new LinkedHashMap<String, Method>();
+            for (var method : type.getDeclaredMethods()) {
+                methods.putIfAbsent(getSignature(method), method);
+            }
+            for (var superInterface : type.getInterfaces()) {
+                SIGNATURES.get(superInterface).forEach(methods::putIfAbsent);
             }
-            return false;
+            if (type.getSuperclass() != null) {
+                SIGNATURES.get(type.getSuperclass()).forEach(methods::putIfAbsent);
+            }
+            return Collections.unmodifiableMap(methods);
         }
+    };
 
-        /**
-         * Calculates hash code of a {@link Method} instance
-         * Formula: {@link Arrays#hashCode(Object[])} of type parameters plus {@link Class#hashCode()} of
-         * return type plus {@link String#hashCode()} of name.
-         *
-         * @return hash code of the {@link #instance}
-         */
+    /**
+     * Methods of a type which have to be implemented by a derived class.
+     * A method has to be implemented if the first method met with its signature is <code>abstract</code>.
+     */
+    private final static ClassValue<List<Method>> ABSTRACT_METHODS = new ClassValue<>() {
         @Override
-        public int hashCode() {
-            return Arrays.hashCode(instance.getParameterTypes()) + instance.getReturnType().hashCode()
-                    + instance.getName().hashCode();
+        protected List<Method> computeValue(Class<?> type) {
+            return SIGNATURES.get(type).values().stream().filter(m -> Modifier.isAbstract(m.getModifiers()))
+                    .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        }
+    };
+
+    /**
+     * Returns signature of a method: name, parameter types and return type.
+     *
+     * @param method target method
+     * @return string representation of the signature, e.g. <code>get(int)java.lang.Object</code>
+     */
+    private static String getSignature(Method method) {
+        var signature = new StringBuilder(method.getName()).append(OPEN);
+        for (var type : method.getParameterTypes()) {
+            signature.append(type.getName()).append(COMMA);
         }
+        return signature.append(CLOSE).append(method.getReturnType().getName()).toString();
     }
 
     /**
-     * Adds all abstract methods of the target type to {@link Set} of {@link CustomMethod}
+     * Returns methods of given {@link Class} which have to be implemented by the generated class.
      *
-     * @param methods target set
      * @param clazz target type token
+     * @return list of abstract methods which are not implemented in the target type or its supertypes
      */
-    private void fill(Set<CustomMethod> methods, Class<?> clazz) {
-        if (clazz == null) return;
-        methods.addAll(Arrays.stream(clazz.getDeclaredMethods())
-                .map(m -> new CustomMethod(m, Modifier.isFinal(m.getModifiers())
-                        || !Modifier.isAbstract(m.getModifiers()))).collect(Collectors.toSet()));
-        Arrays.stream(clazz.getInterfaces()).forEach(i -> fill(methods, i));
-        fill(methods, clazz.getSuperclass());
+    List<Method> getAbstractMethods(Class<?> clazz) {
+        return ABSTRACT_METHODS.get(clazz);
     }
 
     /**
@@ -324,11 +354,9 @@ public class Implementor implements JarImpler {
      * @param writer given {@link BufferedWriter}
      */
     private void generateAbstractMethods(Class<?> clazz, BufferedWriter writer) {
-        var methods = new HashSet<CustomMethod>();
-        fill(methods, clazz);
-        methods.stream().filter(m -> !m.isOverridden).forEach(m -> {
+        getAbstractMethods(clazz).forEach(m -> {
             try {
-                generateExecutable(m.instance, writer);
+                generateExecutable(m, writer);
             } catch (ImplerException e) {
                 e.printStackTrace();
             }
@@ -371,18 +399,12 @@ public class Implementor implements JarImpler {
             name = executable.getName();
             implementation = getMethodImplementation(((Method) executable).getReturnType());
             returnType = ((Method) executable).getGenericReturnType().getTypeName() + SPACE;
-            var types = new ArrayList<String>();
-            types.add(returnType);
-            types.addAll(Arrays.stream(executable.getParameters()).map(Parameter::toString).collect(Collectors.toList()));
-            for (var type : types) {
-                if (type.contains(TYPE_T)) {
-                    returnType = TYPE_T + SPACE + returnType;
-                    break;
-                }
-            }
         }
-        var args = getJoinedStrings(executable.getParameters());
-        var exceptions = getJoinedStrings(executable.getExceptionTypes());
+        var args = getParameters(executable);
+        if (isMethod && (returnType.contains(TYPE_T) || args.contains(TYPE_T))) {
+            returnType = TYPE_T + SPACE + returnType;
+        }
+        var exceptions = getExceptions(executable);
         if (exceptions.length() > 0) exceptions = THROWS + exceptions;
         try {
             if (isDeprecated) {
@@ -437,22 +459,45 @@ public class Implementor implements JarImpler {
     }
 
     /**
-     * Returns comma-separated elements of {@link AnnotatedElement}.
-     * This method is most commonly used to get arguments list as a string but can be easily
-     * used for other purposes.
+     * Returns source representation of a type.
+     * Nested classes are written with dots instead of <code>$</code>.
      *
-     * @param annotatedElements list of {@link AnnotatedElement}
-     * @return string representation of comma-separated arguments
+     * @param type target type
+     * @return name of the type
      */
-    private String getJoinedStrings(AnnotatedElement[] annotatedElements) {
+    private static String getTypeName(Type type) {
+        return type.getTypeName().replace('$', DOT.charAt(0));
+    }
+
+    /**
+     * Returns comma-separated parameters of an {@link Executable}: types followed by names.
+     *
+     * @param executable target executable
+     * @return string representation of the arguments list
+     */
+    private String getParameters(Executable executable) {
         var joiner = new StringJoiner(COMMA + SPACE);
-        Arrays.stream(annotatedElements).forEach(ae -> {
-            var element = ae.toString();
-            if (element.matches("class .+")) {
-                element = element.split(" ")[1];
+        for (var parameter : executable.getParameters()) {
+            var type = getTypeName(parameter.getParameterizedType());
+            if (parameter.isVarArgs()) {
+                type = type.substring(0, type.length() - 2) + VARARGS;
             }
-            joiner.add(element.replaceAll("\\$", "\\."));
-        });
+            joiner.add(type + SPACE + parameter.getName());
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Returns comma-separated exception types thrown by an {@link Executable}.
+     *
+     * @param executable target executable
+     * @return string representation of the exceptions list
+     */
+    private String getExceptions(Executable executable) {
+        var joiner = new StringJoiner(COMMA + SPACE);
+        for (var exception : executable.getExceptionTypes()) {
+            joiner.add(getTypeName(exception));
+        }
         return joiner.toString();
     }
 
@@ -531,23 +576,107 @@ public class Implementor implements JarImpler {
     }
 
     /**
-     * Generates implementation of a class denoted by the provided type token and creates a <code>.jar</code>
-     * file which contains that implementation in the provided path.
+     * Generator of an artifact of the implementation.
+     */
+    private interface Generator {
+        /**
+         * Generates the artifact.
+         *
+         * @param target path of the artifact
+         * @throws ImplerException if the artifact can't be generated
+         */
+        void generate(Path target) throws ImplerException;
+    }
+
+    /**
+     * Returns description of an {@link Executable} used in fingerprints.
+     * It contains the generic signature, parameter names and {@link Deprecated} flag.
+     *
+     * @param executable target executable
+     * @return string representation of the executable
+     */
+    private static String describe(Executable executable) {
+        var description = new StringJoiner(SPACE);
+        description.add(executable.toGenericString());
+        Arrays.stream(executable.getParameters()).forEach(p -> description.add(p.getName()));
+        return description.add(String.valueOf(executable.isAnnotationPresent(Deprecated.class))).toString();
+    }
+
+    /**
+     * Returns structural fingerprint of the target type.
+     * Fingerprint depends on the generator, the type name and modifiers, its supertypes, callable constructors and
+     * abstract methods, so it changes whenever the generated implementation may change.
      *
      * @param clazz target type token
-     * @param path target path
-     * @throws ImplerException if:
-     * <ul>
-     *     <li>One or more arguments are <code>null</code></li>
-     *     <li>Target class can't be extended</li>
-     *     <li>An internal {@link IOException} has occurred when handling I/O processes</li>
-     *     <li>There are no callable constructors in the target class</li>
-     * </ul>
+     * @return hexadecimal SHA-256 digest of the type structure
+     * @throws ImplerException if there are no callable constructors in the target class
+     */
+    String getFingerprint(Class<?> clazz) throws ImplerException {
+        var lines = new ArrayList<String>();
+        for (Class<?> type = clazz; type != null; type = type.getSuperclass()) {
+            lines.add(Modifier.toString(type.getModifiers()) + SPACE + type.getName());
+            Arrays.stream(type.getInterfaces()).forEach(i -> lines.add(i.getName()));
+        }
+        var members = new ArrayList<String>();
+        if (!clazz.isInterface()) {
+            getCallableConstructors(clazz).forEach(c -> members.add(describe(c)));
+        }
+        getAbstractMethods(clazz).forEach(m -> members.add(describe(m)));
+        Collections.sort(members);
+        lines.addAll(members);
+        lines.add(getClass().getName());
+        try {
+            var digest = MessageDigest.getInstance(DIGEST)
+                    .digest(String.join(NEWLINE, lines).getBytes(StandardCharsets.UTF_8));
+            var hex = new StringBuilder();
+            for (var b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new ImplerException("Unable to compute fingerprint of " + clazz.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Generates an artifact reusing the cached one if the target type has not changed.
+     * If caching is disabled, just runs the generator.
+     *
+     * @param clazz target type token
+     * @param target path of the artifact
+     * @param extension extension of the artifact, e.g. {@value #JAVA}
+     * @param generator generator of the artifact
+     * @throws ImplerException if the artifact can't be generated or restored from the cache
+     */
+    private void generateCached(Class<?> clazz, Path target, String extension, Generator generator)
+            throws ImplerException {
+        if (cache == null) {
+            generator.generate(target);
+            return;
+        }
+        var key = getFingerprint(clazz) + DOT + extension;
+        try {
+            if (cache.restore(key, target)) {
+                return;
+            }
+        } catch (IOException e) {
+            throw new ImplerException("Unable to restore cached implementation", e);
+        }
+        generator.generate(target);
+        try {
+            cache.store(key, target);
+        } catch (IOException e) {
+            System.err.println("Can't store the implementation in the cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates parent directories of the file.
+     *
+     * @param path target file
+     * @throws ImplerException if directories can't be created
      */
-    @Override
-    public void implement(Class<?> clazz, Path path) throws ImplerException {
-        validateClass(clazz);
-        path = getFilePath(path, clazz, JAVA);
+    private void createParentDirectories(Path path) throws ImplerException {
         if (path.getParent() != null) {
             try {
                 Files.createDirectories(path.getParent());
@@ -555,6 +684,17 @@ public class Implementor implements JarImpler {
                 throw new ImplerException("Unable to create directories for output file", e);
             }
         }
+    }
+
+    /**
+     * Writes source code of the implementation of the target type to the given file.
+     *
+     * @param clazz target type token
+     * @param path target source file
+     * @throws ImplerException if an internal {@link IOException} has occurred or there are no callable
+     * constructors in the target class
+     */
+    private void generateSource(Class<?> clazz, Path path) throws ImplerException {
         setClassName(clazz);
         try (BufferedWriter writer = Files.newBufferedWriter(path)) {
             writer.write(getPackageDeclaration(clazz));
@@ -572,6 +712,7 @@ public class Implementor implements JarImpler {
     /**
      * Generates implementation of a class denoted by the provided type token and creates a <code>.jar</code>
      * file which contains that implementation in the provided path.
+     * The source file is taken from the cache if the target type has not changed.
      *
      * @param clazz target type token
      * @param path target path
@@ -580,13 +721,26 @@ public class Implementor implements JarImpler {
      *     <li>One or more arguments are <code>null</code></li>
      *     <li>Target class can't be extended</li>
      *     <li>An internal {@link IOException} has occurred when handling I/O processes</li>
-     *     <li>{@link javax.tools.JavaCompiler} failed to compile target source file</li>
      *     <li>There are no callable constructors in the target class</li>
      * </ul>
      */
     @Override
-    public void implementJar(Class<?> clazz, Path path) throws ImplerException {
+    public void implement(Class<?> clazz, Path path) throws ImplerException {
         validateClass(clazz);
+        var file = getFilePath(path, clazz, JAVA);
+        createParentDirectories(file);
+        generateCached(clazz, file, JAVA, target -> generateSource(clazz, target));
+    }
+
+    /**
+     * Generates implementation of a class denoted by the provided type token, compiles it and
+     * creates a <code>.jar</code> file with the compiled class.
+     *
+     * @param clazz target type token
+     * @param path target path for the output <code>jar</code> file
+     * @throws ImplerException if the implementation can't be generated, compiled or written
+     */
+    void generateJar(Class<?> clazz, Path path) throws ImplerException {
         Path sourcePath;
         try {
             sourcePath = Files.createTempDirectory(path.toAbsolutePath().getParent(), TEMP);
@@ -594,7 +748,9 @@ public class Implementor implements JarImpler {
             throw new ImplerException("Can't create a temporary directory.", e);
         }
         try {
-            implement(clazz, sourcePath);
+            var file = getFilePath(sourcePath, clazz, JAVA);
+            createParentDirectories(file);
+            generateSource(clazz, file);
             compile(clazz, sourcePath);
             createJar(clazz, path, sourcePath);
         } finally {
@@ -606,34 +762,87 @@ public class Implementor implements JarImpler {
         }
     }
 
+    /**
+     * Generates implementation of a class denoted by the provided type token and creates a <code>.jar</code>
+     * file which contains that implementation in the provided path.
+     * The <code>.jar</code> file is taken from the cache if the target type has not changed.
+     *
+     * @param clazz target type token
+     * @param path target path
+     * @throws ImplerException if:
+     * <ul>
+     *     <li>One or more arguments are <code>null</code></li>
+     *     <li>Target class can't be extended</li>
+     *     <li>An internal {@link IOException} has occurred when handling I/O processes</li>
+     *     <li>{@link javax.tools.JavaCompiler} failed to compile target source file</li>
+     *     <li>There are no callable constructors in the target class</li>
+     * </ul>
+     */
+    @Override
+    public void implementJar(Class<?> clazz, Path path) throws ImplerException {
+        validateClass(clazz);
+        generateCached(clazz, path, JAR, target -> generateJar(clazz, target));
+    }
+
     /**
      * This function is used to choose which way of implementation to execute.
      * Runs {@link Implementor} in two possible ways:
      *  <ul>
      *      <li> 2 arguments: className rootPath - runs {@link #implement(Class, Path)} with given arguments</li>
      *      <li> 3 arguments: -jar className jarPath - runs {@link #implementJar(Class, Path)} with two second arguments</li>
+     *      <li> 3 or 4 arguments: -bytecode [-jar] className jarPath - runs
+     *      {@link BytecodeImplementor#implementJar(Class, Path)} with two last arguments</li>
+     *      <li> 3 arguments: -all source jarPath - runs {@link BatchImplementor#implementAll(String, Path)} for
+     *      a <code>.jar</code> file or package prefix using a worker thread per available processor</li>
      *  </ul>
+     *  If system property {@value #CACHE_PROPERTY} is set, generated artifacts are cached in the directory it names,
+     *  numbers of cache hits and misses are printed after the run.
      *  If arguments are incorrect or an error occurs during implementation returns message with information about error
      *
      * @param args arguments for running an application
      */
     public static void main(String[] args) {
+        var bytecode = args != null && args.length > 0 && "-bytecode".equals(args[0]);
+        if (bytecode) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
         if (args == null || !(args.length == 2 || args.length == 3)) {
-            System.err.println("Two or three arguments expected");
+            System.err.println("Two or three arguments expected after -bytecode flag, if any");
             return;
         } else {
             for (String arg: args) {
                 if (arg == null) {
                     System.err.println("All arguments must be non-null");
+                    return;
                 }
             }
         }
-        JarImpler implementor = new Implementor();
+        if (bytecode && "-all".equals(args[0])) {
+            System.err.println("-bytecode can't be combined with -all");
+            return;
+        }
+        ImplementorCache cache = null;
+        try {
+            var cacheDirectory = System.getProperty(CACHE_PROPERTY);
+            if (cacheDirectory != null) {
+                cache = new ImplementorCache(Paths.get(cacheDirectory));
+            }
+        } catch (InvalidPathException | IOException e) {
+            System.err.println("Unable to open implementation cache: " + e.getMessage());
+        }
+        JarImpler implementor = bytecode ? new BytecodeImplementor(cache) : new Implementor(cache);
         try {
-            if (args.length == 2) {
+            if (bytecode && args.length == 2) {
+                implementor.implementJar(Class.forName(args[0]), Paths.get(args[1]));
+            } else if (args.length == 2) {
                 implementor.implement(Class.forName(args[0]), Paths.get(args[1]));
-            } else {
+            } else if ("-all".equals(args[0])) {
+                var batch = new BatchImplementor(Runtime.getRuntime().availableProcessors(), cache);
+                System.out.println("Implemented classes: " + batch.implementAll(args[1], Paths.get(args[2])));
+            } else if ("-jar".equals(args[0])) {
                 implementor.implementJar(Class.forName(args[1]), Paths.get(args[2]));
+            } else {
+                System.err.println("Unknown mode: " + args[0]);
             }
         } catch (InvalidPathException e) {
             System.err.println("Incorrect path: " + e.getMessage());
@@ -642,5 +851,8 @@ public class Implementor implements JarImpler {
         } catch (ImplerException e) {
             System.err.println("An error occurred during implementation: " + e.getMessage());
         }
+        if (cache != null) {
+            System.out.println("Implementation cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package ru.ifmo.rain.kramer.implementor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * @author Kramer Konstantin
+ * Content-addressed storage of artifacts generated by {@link Implementor}.
+ * Artifacts are stored in a directory under the structural fingerprint of the implemented type,
+ * so the cache can be shared between runs and between several {@link Implementor} instances.
+ */
+public class ImplementorCache {
+    /**
+     * Directory containing cached artifacts.
+     */
+    private final Path directory;
+    /**
+     * Number of artifacts taken from the cache.
+     */
+    private final AtomicLong hits = new AtomicLong();
+    /**
+     * Number of artifacts which were missing in the cache.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates cache storing artifacts in the given directory.
+     *
+     * @param directory cache directory, created if absent
+     * @throws IOException if the directory can't be created
+     */
+    public ImplementorCache(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Copies cached artifact to the target path if it is present.
+     *
+     * @param key fingerprint of the artifact
+     * @param target path to copy the artifact to
+     * @return <code>true</code> if the artifact was found, <code>false</code> otherwise
+     * @throws IOException if an error occurred when copying the artifact
+     */
+    boolean restore(String key, Path target) throws IOException {
+        try {
+            Files.copy(directory.resolve(key), target, REPLACE_EXISTING);
+            hits.incrementAndGet();
+            return true;
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Stores generated artifact in the cache.
+     * The artifact is written to a temporary file first and then atomically moved, so concurrent
+     * readers never see a partially written artifact.
+     *
+     * @param key fingerprint of the artifact
+     * @param source generated artifact
+     * @throws IOException if an error occurred when writing the artifact
+     */
+    void store(String key, Path source) throws IOException {
+        var temp = Files.createTempFile(directory, key, null);
+        try {
+            Files.copy(source, temp, REPLACE_EXISTING);
+            Files.move(temp, directory.resolve(key), ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns number of artifacts taken from the cache.
+     *
+     * @return number of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns number of artifacts which had to be generated.
+     *
+     * @return number of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns string representation of the cache statistics.
+     *
+     * @return cache directory, hits and misses
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: %d hits, %d misses", directory, getHits(), getMisses());
+    }
+}
@@ -1,63 +1,432 @@
 package ru.ifmo.rain.kramer.concurrent;
 
 import info.kgeorgiy.java.advanced.concurrent.ListIP;
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 public class IterativeParallelism implements ListIP {
 
-    private int threadsNumber;
-    private int eachCount;
-    private int restCount;
-    private List<Thread> threads;
+    /**
+     * How a list is split between workers.
+     */
+    public enum Scheduling {
+        /**
+         * The list is cut into {@code threads} equal contiguous chunks.
+         */
+        STATIC,
+        /**
+         * The list is cut into many small chunks which workers claim one by one, so a slow chunk
+         * doesn't delay the whole call. Chunk size is chosen from the measured cost of the first elements.
+         * Small or cheap lists are processed sequentially, without any threads.
+         */
+        ADAPTIVE
+    }
 
-    private <T> void init(int threads, List<? extends T> list) {
-        if (threads <= 0) {
-            throw new IllegalArgumentException("The number of threads must be at least 1.");
+    private static final long SAMPLE_NANOS = 20_000;
+    private static final long PARALLEL_NANOS = 100_000;
+    private static final long CHUNK_NANOS = 25_000;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int BATCH_SIZE = 1024;
+    private static final int BATCHES_PER_THREAD = 2;
+
+    private final ExecutorService executor;
+    private final ParallelMapper mapper;
+    private final ThreadFactory threadFactory;
+    private final Semaphore permits;
+    private final Scheduling scheduling;
+
+    /**
+     * Creates an instance which starts new threads on every call.
+     */
+    public IterativeParallelism() {
+        this(null, null, Thread::new, 0, Scheduling.STATIC);
+    }
+
+    /**
+     * Creates an instance which starts new threads on every call and splits lists as specified.
+     *
+     * @param scheduling how lists are split between workers
+     */
+    public IterativeParallelism(Scheduling scheduling) {
+        this(null, null, Thread::new, 0, scheduling);
+    }
+
+    /**
+     * Creates an instance which runs chunks on the given executor, e.g. a {@link java.util.concurrent.ForkJoinPool}.
+     * The executor is not shut down by this class. One instance may be used by many clients concurrently.
+     *
+     * @param executor executor to run chunks on
+     */
+    public IterativeParallelism(ExecutorService executor) {
+        this(Objects.requireNonNull(executor), Scheduling.STATIC);
+    }
+
+    /**
+     * Creates an instance which runs chunks on the given executor and splits lists as specified.
+     *
+     * @param executor executor to run chunks on, {@code null} to start new threads on every call
+     * @param scheduling how lists are split between workers
+     */
+    public IterativeParallelism(ExecutorService executor, Scheduling scheduling) {
+        this(executor, null, null, 0, scheduling);
+    }
+
+    /**
+     * Creates an instance which runs chunks on the given mapper and never starts threads itself.
+     * The mapper is not closed by this class. One instance may be used by many clients concurrently.
+     *
+     * @param mapper mapper to run chunks on
+     */
+    public IterativeParallelism(ParallelMapper mapper) {
+        this(mapper, Scheduling.STATIC);
+    }
+
+    /**
+     * Creates an instance which runs chunks on the given mapper and splits lists as specified.
+     *
+     * @param mapper mapper to run chunks on
+     * @param scheduling how lists are split between workers
+     */
+    public IterativeParallelism(ParallelMapper mapper, Scheduling scheduling) {
+        this(null, Objects.requireNonNull(mapper), null, 0, scheduling);
+    }
+
+    /**
+     * Creates an instance which runs chunks on new threads of the given factory, e.g. {@link VirtualThreads#factory()}
+     * for functions blocking on I/O. At most {@code limit} chunks of all concurrent calls run at once.
+     *
+     * @param threadFactory factory of threads for chunks
+     * @param limit maximal number of chunks running at once
+     */
+    public IterativeParallelism(ThreadFactory threadFactory, int limit) {
+        this(threadFactory, limit, Scheduling.STATIC);
+    }
+
+    /**
+     * Creates an instance which runs chunks on new threads of the given factory and splits lists as specified.
+     *
+     * @param threadFactory factory of threads for chunks
+     * @param limit maximal number of chunks running at once
+     * @param scheduling how lists are split between workers
+     */
+    public IterativeParallelism(ThreadFactory threadFactory, int limit, Scheduling scheduling) {
+        this(null, null, Objects.requireNonNull(threadFactory), limit, scheduling);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be at least 1.");
+        }
+    }
+
+    private IterativeParallelism(ExecutorService executor, ParallelMapper mapper, ThreadFactory threadFactory,
+                                 int limit, Scheduling scheduling) {
+        this.executor = executor;
+        this.mapper = mapper;
+        this.threadFactory = threadFactory;
+        this.permits = limit > 0 ? new Semaphore(limit) : null;
+        this.scheduling = Objects.requireNonNull(scheduling);
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e);
+    }
+
+    private <R> R limited(Supplier<? extends R> task) throws InterruptedException {
+        if (permits == null) {
+            return task.get();
+        }
+        permits.acquire();
+        try {
+            return task.get();
+        } finally {
+            permits.release();
         }
-        Objects.requireNonNull(list);
-        threadsNumber = Math.max(1, Math.min(threads, list.size()));
-        this.threads = new ArrayList<>();
-        int count = list.size();
-        eachCount = count / threadsNumber;
-        restCount = count % threadsNumber;
     }
 
-    private <T, R> void addThread(List<Thread> threads, List<R> threadValues, int index, Stream<? extends T> stream,
-                                  Function<? super Stream<? extends T>, ? extends R> task) {
-        Thread thread = new Thread(() -> threadValues.set(index, task.apply(stream)));
-        thread.start();
-        threads.add(thread);
+    private <R> List<R> runOnThreads(List<Supplier<? extends R>> tasks) throws InterruptedException {
+        List<R> values = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        try {
+            for (int i = 1; i < tasks.size(); i++) {
+                final int index = i;
+                Thread thread = threadFactory.newThread(() -> {
+                    try {
+                        values.set(index, limited(tasks.get(index)));
+                    } catch (InterruptedException e) {
+                        errors.add(e);
+                    }
+                });
+                thread.setUncaughtExceptionHandler((t, e) -> errors.add(e));
+                thread.start();
+                threads.add(thread);
+            }
+            values.set(0, limited(tasks.get(0)));
+        } finally {
+            joinThreads(threads);
+        }
+        if (!errors.isEmpty()) {
+            throw rethrow(errors.get(0));
+        }
+        return values;
+    }
+
+    private void joinThreads(List<Thread> threads) throws InterruptedException {
+        for (int i = 0; i < threads.size(); i++) {
+            try {
+                threads.get(i).join();
+            } catch (InterruptedException e) {
+                for (int j = i; j < threads.size(); j++) {
+                    threads.get(j).interrupt();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private <R> List<R> runOnExecutor(List<Supplier<? extends R>> tasks) throws InterruptedException {
+        List<Future<? extends R>> futures = new ArrayList<>();
+        List<R> values = new ArrayList<>(tasks.size());
+        try {
+            for (int i = 1; i < tasks.size(); i++) {
+                futures.add(executor.submit(tasks.get(i)::get));
+            }
+            values.add(tasks.get(0).get());
+            for (Future<? extends R> future : futures) {
+                values.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return values;
+    }
+
+    private <R> List<R> execute(List<Supplier<? extends R>> tasks) throws InterruptedException {
+        if (tasks.size() == 1) {
+            return Collections.singletonList(limited(tasks.get(0)));
+        }
+        if (mapper != null) {
+            return mapper.run(Supplier::get, tasks);
+        }
+        return executor == null ? runOnThreads(tasks) : runOnExecutor(tasks);
+    }
+
+    private interface RangeTask<R> {
+        R apply(int from, int to);
     }
 
-    private <T, R> void addThreads(List<R> threadValues, List<? extends T> list, Function<? super Stream<? extends T>,
-            ? extends R> task) {
+    private <R> List<R> evaluate(int threads, int size, RangeTask<? extends R> task) throws InterruptedException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be at least 1.");
+        }
+        return scheduling == Scheduling.ADAPTIVE ? evaluateAdaptive(threads, size, task)
+                : evaluateStatic(threads, size, task);
+    }
+
+    private <R> List<R> evaluateStatic(int threads, int size, RangeTask<? extends R> task)
+            throws InterruptedException {
+        int threadsNumber = Math.max(1, Math.min(threads, size));
+        int eachCount = size / threadsNumber;
+        int restCount = size % threadsNumber;
+        List<Supplier<? extends R>> tasks = new ArrayList<>(threadsNumber);
         for (int i = 0, l, r = 0; i < threadsNumber; i++) {
             l = r;
-            r = l + eachCount + (restCount-- > 0 ? 1 : 0);
-            addThread(threads, threadValues, i, list.subList(l, r).stream(), task);
+            r = l + eachCount + (i < restCount ? 1 : 0);
+            final int from = l, to = r;
+            tasks.add(() -> task.apply(from, to));
         }
+        return execute(tasks);
     }
 
-    private void joinThreads(List<Thread> threads) throws InterruptedException {
-        for (Thread thread : threads) {
-            thread.join();
+    private <R> List<R> evaluateAdaptive(int threads, int size, RangeTask<? extends R> task)
+            throws InterruptedException {
+        // Process doubling prefix chunks on the calling thread until their cost is measurable
+        List<R> values = new ArrayList<>();
+        int done = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        int step = 1;
+        do {
+            int to = Math.min(size, done + step);
+            values.add(task.apply(done, to));
+            done = to;
+            step *= 2;
+            elapsed = System.nanoTime() - start;
+        } while (done < size && elapsed < SAMPLE_NANOS);
+
+        int rest = size - done;
+        double elementNanos = Math.max(1, elapsed) / (double) done;
+        if (rest == 0) {
+            return values;
+        } else if (threads == 1 || elementNanos * rest < PARALLEL_NANOS) {
+            values.add(task.apply(done, size));
+            return values;
         }
+
+        int balancedSize = (rest + threads * CHUNKS_PER_THREAD - 1) / (threads * CHUNKS_PER_THREAD);
+        int chunkSize = (int) Math.max(1, Math.min(balancedSize, CHUNK_NANOS / elementNanos));
+        int chunks = (rest + chunkSize - 1) / chunkSize;
+        int offset = done;
+        List<R> chunkValues = new ArrayList<>(Collections.nCopies(chunks, null));
+        AtomicInteger next = new AtomicInteger();
+        Supplier<Void> worker = () -> {
+            for (int chunk; (chunk = next.getAndIncrement()) < chunks; ) {
+                int l = offset + chunk * chunkSize;
+                chunkValues.set(chunk, task.apply(l, Math.min(size, l + chunkSize)));
+            }
+            return null;
+        };
+        List<Supplier<? extends Void>> workers = Collections.nCopies(Math.min(threads, chunks), worker);
+        execute(workers);
+        values.addAll(chunkValues);
+        return values;
     }
 
     private <T, R> R task(int threads, final List<? extends T> list,
                               final Function<? super Stream<? extends T>, ? extends R> task,
                               final Function<? super Stream<? extends R>, ? extends R> ansCollector)
             throws InterruptedException {
-        init(threads, list);
-        List<R> threadValues = new ArrayList<>(Collections.nCopies(threadsNumber, null));
-        addThreads(threadValues, list, task);
-        joinThreads(this.threads);
-        return ansCollector.apply(threadValues.stream());
+        return ansCollector.apply(evaluate(threads, list.size(), (l, r) -> task.apply(list.subList(l, r).stream())).stream());
+    }
+
+    private static <T> List<T> asList(Object[] values) {
+        return asList(values, values.length);
+    }
+
+    // Results are modifiable, as lists of Collectors.toList() are
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> asList(Object[] values, int size) {
+        return new ArrayList<>((List<T>) Arrays.asList(values).subList(0, size));
+    }
+
+    /**
+     * Folds batches of a lazy source in order. Workers read batches from the source one at a time, so at most
+     * {@code window} batches and their partial results are held at once. Partial results are combined as soon as
+     * all preceding ones are combined; a decisive result stops reading the source.
+     */
+    private static class BatchFold<T, R> {
+        private final Iterator<? extends T> source;
+        private final Function<? super List<T>, ? extends R> batchTask;
+        private final BinaryOperator<R> combiner;
+        private final Predicate<? super R> decisive;
+        private final int window;
+        private final Map<Long, R> pending = new HashMap<>();
+        private long read;
+        private long folded;
+        private boolean exhausted;
+        private boolean stopped;
+        // A worker was interrupted, so the result misses some batches
+        private boolean interrupted;
+        private R result;
+
+        BatchFold(Iterator<? extends T> source, Function<? super List<T>, ? extends R> batchTask, R identity,
+                  BinaryOperator<R> combiner, Predicate<? super R> decisive, int window) {
+            this.source = Objects.requireNonNull(source);
+            this.batchTask = batchTask;
+            this.result = identity;
+            this.combiner = combiner;
+            this.decisive = decisive;
+            this.window = window;
+        }
+
+        private synchronized void stop() {
+            stopped = true;
+            notifyAll();
+        }
+
+        private synchronized List<T> nextBatch() throws InterruptedException {
+            while (!stopped && !exhausted && read - folded >= window) {
+                wait();
+            }
+            List<T> batch = new ArrayList<>();
+            while (!stopped && batch.size() < BATCH_SIZE && source.hasNext()) {
+                batch.add(source.next());
+            }
+            exhausted = !source.hasNext();
+            return batch;
+        }
+
+        private synchronized void fold(long index, R value) {
+            pending.put(index, value);
+            while (!stopped && pending.containsKey(folded)) {
+                result = combiner.apply(result, pending.remove(folded++));
+                stopped = decisive.test(result);
+            }
+            notifyAll();
+        }
+
+        Void work() {
+            try {
+                while (true) {
+                    List<T> batch;
+                    long index;
+                    synchronized (this) {
+                        batch = nextBatch();
+                        index = read++;
+                    }
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    fold(index, batchTask.apply(batch));
+                }
+            } catch (InterruptedException e) {
+                synchronized (this) {
+                    interrupted = true;
+                }
+                stop();
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException | Error e) {
+                stop();
+                throw e;
+            }
+            return null;
+        }
+
+        synchronized R result() throws InterruptedException {
+            if (interrupted) {
+                throw new InterruptedException("Worker was interrupted");
+            }
+            return result;
+        }
+    }
+
+    private <T, R> R fold(int threads, Iterator<? extends T> source, Function<? super List<T>, ? extends R> batchTask,
+                          R identity, BinaryOperator<R> combiner, Predicate<? super R> decisive)
+            throws InterruptedException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be at least 1.");
+        }
+        BatchFold<T, R> fold = new BatchFold<>(source, batchTask, identity, combiner, decisive,
+                threads * BATCHES_PER_THREAD);
+        Supplier<Void> worker = fold::work;
+        List<Supplier<? extends Void>> workers = Collections.nCopies(threads, worker);
+        execute(workers);
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return fold.result();
     }
 
     @Override
@@ -74,9 +443,24 @@ public class IterativeParallelism implements ListIP {
         return maximum(threads, list, Collections.reverseOrder(comparator));
     }
 
+    /**
+     * Checks that all elements match the predicate.
+     * As soon as one worker finds a counterexample, the others stop at their next element,
+     * so the call returns after at most one more predicate evaluation per worker.
+     */
     @Override
     public <T> boolean all(int threads, List<? extends T> list, Predicate<? super T> predicate) throws InterruptedException {
-        return task(threads, list, stream -> stream.allMatch(predicate), stream -> stream.allMatch(item -> item));
+        final AtomicBoolean decided = new AtomicBoolean();
+        return task(threads, list, stream -> stream.allMatch(item -> {
+            if (decided.get()) {
+                return false;
+            }
+            if (predicate.test(item)) {
+                return true;
+            }
+            decided.set(true);
+            return false;
+        }), stream -> stream.allMatch(item -> item));
     }
 
     @Override
@@ -86,19 +470,1045 @@ public class IterativeParallelism implements ListIP {
 
     @Override
     public String join(int threads, List<?> list) throws InterruptedException {
-        return task(threads, list, stream -> stream.map(Object::toString).collect(Collectors.joining()),
-                stream -> stream.collect(Collectors.joining()));
+        String[] strings = new String[list.size()];
+        long length = evaluate(threads, list.size(), (l, r) -> {
+            long chunkLength = 0;
+            int i = l;
+            for (Object item : list.subList(l, r)) {
+                strings[i] = item.toString();
+                chunkLength += strings[i++].length();
+            }
+            return chunkLength;
+        }).stream().mapToLong(Long::longValue).sum();
+        StringBuilder result = new StringBuilder(Math.toIntExact(length));
+        for (String string : strings) {
+            result.append(string);
+        }
+        return result.toString();
     }
 
+    /**
+     * Returns elements matching the predicate.
+     * Every chunk writes its matches into the output array at its own offset, then chunks are
+     * compacted in place, so no per-chunk lists are built.
+     */
     @Override
     public <T> List<T> filter(int threads, List<? extends T> list, Predicate<? super T> predicate) throws InterruptedException {
-        return task(threads, list, stream -> stream.filter(predicate).collect(Collectors.toList()),
-                listStream -> listStream.flatMap(Collection::stream).collect(Collectors.toList()));
+        Object[] values = new Object[list.size()];
+        List<int[]> chunks = evaluate(threads, list.size(), (l, r) -> {
+            int i = l;
+            for (T item : list.subList(l, r)) {
+                if (predicate.test(item)) {
+                    values[i++] = item;
+                }
+            }
+            return new int[]{l, i - l};
+        });
+        int size = 0;
+        for (int[] chunk : chunks) {
+            System.arraycopy(values, chunk[0], values, size, chunk[1]);
+            size += chunk[1];
+        }
+        return asList(values, size);
     }
 
+    /**
+     * Returns results of the function. Chunks write results straight into the presized output array.
+     */
     @Override
     public <T, U> List<U> map(int threads, List<? extends T> list, Function<? super T, ? extends U> function) throws InterruptedException {
-        return task(threads, list, stream -> stream.map(function).collect(Collectors.toList()),
-                listStream -> listStream.flatMap(Collection::stream).collect(Collectors.toList()));
+        Object[] values = new Object[list.size()];
+        evaluate(threads, list.size(), (l, r) -> {
+            int i = l;
+            for (T item : list.subList(l, r)) {
+                values[i++] = function.apply(item);
+            }
+            return null;
+        });
+        return asList(values);
+    }
+
+    /**
+     * Reduces elements with an associative operator.
+     *
+     * @param threads number of threads to use
+     * @param list elements to reduce
+     * @param identity identity element of the operator
+     * @param operator associative operator
+     * @param <T> type of elements
+     * @return reduction of all elements, {@code identity} for an empty list
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> T reduce(int threads, List<? extends T> list, T identity, BinaryOperator<T> operator)
+            throws InterruptedException {
+        return mapReduce(threads, list, Function.<T>identity(), new Monoid<>(identity, operator));
+    }
+
+    /**
+     * Maps elements and reduces results with a monoid. Every chunk folds its results into a single value,
+     * so no intermediate collections are built.
+     *
+     * @param threads number of threads to use
+     * @param list elements to map
+     * @param mapper function applied to every element
+     * @param monoid monoid used to combine results
+     * @param <T> type of elements
+     * @param <R> type of results
+     * @return reduction of mapped elements, identity of the monoid for an empty list
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T, R> R mapReduce(int threads, List<? extends T> list, Function<? super T, ? extends R> mapper,
+                              Monoid<R> monoid) throws InterruptedException {
+        BinaryOperator<R> operator = monoid.getOperator();
+        List<R> values = evaluate(threads, list.size(), (l, r) -> {
+            R value = monoid.getIdentity();
+            for (T item : list.subList(l, r)) {
+                value = operator.apply(value, mapper.apply(item));
+            }
+            return value;
+        });
+        R result = monoid.getIdentity();
+        for (R value : values) {
+            result = operator.apply(result, value);
+        }
+        return result;
+    }
+
+    /**
+     * Sorts elements with a stable parallel merge sort. Chunks are sorted on workers, then the sorted runs are
+     * cut by regularly sampled splitters into segments of the output, which are k-way merged on workers as well.
+     *
+     * @param threads number of threads to use
+     * @param list elements to sort
+     * @param comparator order of elements
+     * @param <T> type of elements
+     * @return sorted elements, equal elements keep their relative order
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> List<T> sort(int threads, List<? extends T> list, Comparator<? super T> comparator)
+            throws InterruptedException {
+        Objects.requireNonNull(comparator);
+        Object[] values = list.toArray();
+        List<int[]> runs = new ArrayList<>(evaluate(threads, values.length, (l, r) -> {
+            Arrays.sort(values, l, r, uncheckedComparator(comparator));
+            return new int[]{l, r};
+        }));
+        runs.removeIf(run -> run[0] == run[1]);
+        if (runs.size() <= 1) {
+            return asList(values);
+        }
+
+        // Splitter j bounds segment j from above: elements equal to it stay in segment j in every run
+        Comparator<Object> order = uncheckedComparator(comparator);
+        int segments = Math.min(threads, values.length);
+        List<Object> samples = new ArrayList<>();
+        for (int[] run : runs) {
+            for (int i = 1; i < segments; i++) {
+                samples.add(values[run[0] + (int) ((long) (run[1] - run[0]) * i / segments)]);
+            }
+        }
+        samples.sort(order);
+        int[][] bounds = new int[segments + 1][];
+        bounds[0] = runs.stream().mapToInt(run -> run[0]).toArray();
+        bounds[segments] = runs.stream().mapToInt(run -> run[1]).toArray();
+        for (int j = 1; j < segments; j++) {
+            Object splitter = samples.get(samples.size() * j / segments);
+            bounds[j] = new int[runs.size()];
+            for (int k = 0; k < runs.size(); k++) {
+                bounds[j][k] = upperBound(values, Math.max(bounds[j - 1][k], runs.get(k)[0]), runs.get(k)[1],
+                        splitter, order);
+            }
+        }
+
+        Object[] result = new Object[values.length];
+        evaluate(threads, segments, (l, r) -> {
+            for (int j = l; j < r; j++) {
+                int offset = 0;
+                for (int k = 0; k < runs.size(); k++) {
+                    offset += bounds[j][k] - runs.get(k)[0];
+                }
+                merge(values, bounds[j], bounds[j + 1], result, offset, order);
+            }
+            return null;
+        });
+        return asList(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Comparator<Object> uncheckedComparator(Comparator<? super T> comparator) {
+        return (Comparator<Object>) comparator;
+    }
+
+    private static int upperBound(Object[] values, int from, int to, Object key, Comparator<Object> order) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (order.compare(values[middle], key) <= 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Merges ranges {@code [from[k], to[k])} of sorted runs into {@code result} starting at {@code offset}.
+     * Ties are taken from the earlier run, which keeps the merge stable.
+     */
+    private static void merge(Object[] values, int[] from, int[] to, Object[] result, int offset,
+                              Comparator<Object> order) {
+        int[] positions = from.clone();
+        // Binary heap of runs which are not exhausted, ordered by their current elements
+        int[] heap = new int[positions.length];
+        int size = 0;
+        for (int k = 0; k < positions.length; k++) {
+            if (positions[k] < to[k]) {
+                heap[size++] = k;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, size, values, positions, order);
+        }
+        while (size > 0) {
+            int k = heap[0];
+            result[offset++] = values[positions[k]++];
+            if (positions[k] == to[k]) {
+                heap[0] = heap[--size];
+            }
+            siftDown(heap, 0, size, values, positions, order);
+        }
+    }
+
+    private static void siftDown(int[] heap, int i, int size, Object[] values, int[] positions,
+                                 Comparator<Object> order) {
+        int run = heap[i];
+        for (int child; (child = 2 * i + 1) < size; i = child) {
+            if (child + 1 < size && precedes(heap[child + 1], heap[child], values, positions, order)) {
+                child++;
+            }
+            if (!precedes(heap[child], run, values, positions, order)) {
+                break;
+            }
+            heap[i] = heap[child];
+        }
+        heap[i] = run;
+    }
+
+    private static boolean precedes(int a, int b, Object[] values, int[] positions, Comparator<Object> order) {
+        int cmp = order.compare(values[positions[a]], values[positions[b]]);
+        return cmp < 0 || cmp == 0 && a < b;
+    }
+
+    /**
+     * Groups elements by the classifier. Every chunk builds its own map; partial maps are merged in chunk order,
+     * so keys follow the order of their first elements and every group keeps the order of the list.
+     *
+     * @param threads number of threads to use
+     * @param list elements to group
+     * @param classifier function mapping elements to keys
+     * @param <T> type of elements
+     * @param <K> type of keys
+     * @return map from keys to lists of elements
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T, K> Map<K, List<T>> groupBy(int threads, List<? extends T> list,
+                                          Function<? super T, ? extends K> classifier) throws InterruptedException {
+        List<Map<K, List<T>>> partial = evaluate(threads, list.size(), (l, r) -> {
+            Map<K, List<T>> groups = new LinkedHashMap<>();
+            for (T item : list.subList(l, r)) {
+                K key = Objects.requireNonNull(classifier.apply(item), "element cannot be mapped to a null key");
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+            }
+            return groups;
+        });
+        if (partial.size() == 1) {
+            return partial.get(0);
+        }
+        Map<K, List<T>> result = new LinkedHashMap<>();
+        for (Map<K, List<T>> groups : partial) {
+            groups.forEach((key, items) -> result.merge(key, items, (a, b) -> {
+                a.addAll(b);
+                return a;
+            }));
+        }
+        return result;
+    }
+
+    /**
+     * Returns maximum of the values.
+     *
+     * @param threads number of threads to use
+     * @param values values to search
+     * @return maximal value
+     * @throws IllegalArgumentException if the array is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public int maximum(int threads, int[] values) throws InterruptedException {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Unable to handle empty array");
+        }
+        List<Integer> maxima = evaluate(threads, values.length, (l, r) -> {
+            int max = values[l];
+            for (int i = l + 1; i < r; i++) {
+                max = Math.max(max, values[i]);
+            }
+            return max;
+        });
+        int result = maxima.get(0);
+        for (int max : maxima) {
+            result = Math.max(result, max);
+        }
+        return result;
+    }
+
+    /**
+     * Returns minimum of the values.
+     *
+     * @param threads number of threads to use
+     * @param values values to search
+     * @return minimal value
+     * @throws IllegalArgumentException if the array is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public int minimum(int threads, int[] values) throws InterruptedException {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Unable to handle empty array");
+        }
+        List<Integer> minima = evaluate(threads, values.length, (l, r) -> {
+            int min = values[l];
+            for (int i = l + 1; i < r; i++) {
+                min = Math.min(min, values[i]);
+            }
+            return min;
+        });
+        int result = minima.get(0);
+        for (int min : minima) {
+            result = Math.min(result, min);
+        }
+        return result;
+    }
+
+    /**
+     * Returns sum of the values. The sum is computed in {@code long}, so it doesn't overflow.
+     *
+     * @param threads number of threads to use
+     * @param values values to sum
+     * @return sum of the values, {@code 0} for an empty array
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public long sum(int threads, int[] values) throws InterruptedException {
+        long result = 0;
+        for (long sum : evaluate(threads, values.length, (l, r) -> {
+            long sum = 0;
+            for (int i = l; i < r; i++) {
+                sum += values[i];
+            }
+            return sum;
+        })) {
+            result += sum;
+        }
+        return result;
+    }
+
+    /**
+     * Returns number of values matching the predicate.
+     *
+     * @param threads number of threads to use
+     * @param values values to test
+     * @param predicate predicate to test values with
+     * @return number of matching values
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public int count(int threads, int[] values, IntPredicate predicate) throws InterruptedException {
+        int result = 0;
+        for (int count : evaluate(threads, values.length, (l, r) -> {
+            int count = 0;
+            for (int i = l; i < r; i++) {
+                if (predicate.test(values[i])) {
+                    count++;
+                }
+            }
+            return count;
+        })) {
+            result += count;
+        }
+        return result;
+    }
+
+    /**
+     * Returns values matching the predicate in their original order.
+     * Chunks write matches into the output array at their own offsets, which are compacted afterwards.
+     *
+     * @param threads number of threads to use
+     * @param values values to filter
+     * @param predicate predicate to test values with
+     * @return new array of matching values
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public int[] filter(int threads, int[] values, IntPredicate predicate) throws InterruptedException {
+        int[] result = new int[values.length];
+        List<int[]> chunks = evaluate(threads, values.length, (l, r) -> {
+            int j = l;
+            for (int i = l; i < r; i++) {
+                if (predicate.test(values[i])) {
+                    result[j++] = values[i];
+                }
+            }
+            return new int[]{l, j - l};
+        });
+        int size = 0;
+        for (int[] chunk : chunks) {
+            System.arraycopy(result, chunk[0], result, size, chunk[1]);
+            size += chunk[1];
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Returns results of the function applied to every value.
+     *
+     * @param threads number of threads to use
+     * @param values values to map
+     * @param function function applied to every value
+     * @return new array of results
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public int[] map(int threads, int[] values, IntUnaryOperator function) throws InterruptedException {
+        int[] result = new int[values.length];
+        evaluate(threads, values.length, (l, r) -> {
+            for (int i = l; i < r; i++) {
+                result[i] = function.applyAsInt(values[i]);
+            }
+            return null;
+        });
+        return result;
+    }
+
+    /**
+     * Returns maximum of the values.
+     *
+     * @param threads number of threads to use
+     * @param values values to search
+     * @return maximal value
+     * @throws IllegalArgumentException if the array is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public long maximum(int threads, long[] values) throws InterruptedException {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Unable to handle empty array");
+        }
+        List<Long> maxima = evaluate(threads, values.length, (l, r) -> {
+            long max = values[l];
+            for (int i = l + 1; i < r; i++) {
+                max = Math.max(max, values[i]);
+            }
+            return max;
+        });
+        long result = maxima.get(0);
+        for (long max : maxima) {
+            result = Math.max(result, max);
+        }
+        return result;
+    }
+
+    /**
+     * Returns minimum of the values.
+     *
+     * @param threads number of threads to use
+     * @param values values to search
+     * @return minimal value
+     * @throws IllegalArgumentException if the array is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public long minimum(int threads, long[] values) throws InterruptedException {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Unable to handle empty array");
+        }
+        List<Long> minima = evaluate(threads, values.length, (l, r) -> {
+            long min = values[l];
+            for (int i = l + 1; i < r; i++) {
+                min = Math.min(min, values[i]);
+            }
+            return min;
+        });
+        long result = minima.get(0);
+        for (long min : minima) {
+            result = Math.min(result, min);
+        }
+        return result;
+    }
+
+    /**
+     * Returns sum of the values, overflowing as {@code long} addition does.
+     *
+     * @param threads number of threads to use
+     * @param values values to sum
+     * @return sum of the values, {@code 0} for an empty array
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public long sum(int threads, long[] values) throws InterruptedException {
+        long result = 0;
+        for (long sum : evaluate(threads, values.length, (l, r) -> {
+            long sum = 0;
+            for (int i = l; i < r; i++) {
+                sum += values[i];
+            }
+            return sum;
+        })) {
+            result += sum;
+        }
+        return result;
+    }
+
+    /**
+     * Returns number of values matching the predicate.
+     *
+     * @param threads number of threads to use
+     * @param values values to test
+     * @param predicate predicate to test values with
+     * @return number of matching values
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public int count(int threads, long[] values, LongPredicate predicate) throws InterruptedException {
+        int result = 0;
+        for (int count : evaluate(threads, values.length, (l, r) -> {
+            int count = 0;
+            for (int i = l; i < r; i++) {
+                if (predicate.test(values[i])) {
+                    count++;
+                }
+            }
+            return count;
+        })) {
+            result += count;
+        }
+        return result;
+    }
+
+    /**
+     * Returns values matching the predicate in their original order.
+     * Chunks write matches into the output array at their own offsets, which are compacted afterwards.
+     *
+     * @param threads number of threads to use
+     * @param values values to filter
+     * @param predicate predicate to test values with
+     * @return new array of matching values
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public long[] filter(int threads, long[] values, LongPredicate predicate) throws InterruptedException {
+        long[] result = new long[values.length];
+        List<int[]> chunks = evaluate(threads, values.length, (l, r) -> {
+            int j = l;
+            for (int i = l; i < r; i++) {
+                if (predicate.test(values[i])) {
+                    result[j++] = values[i];
+                }
+            }
+            return new int[]{l, j - l};
+        });
+        int size = 0;
+        for (int[] chunk : chunks) {
+            System.arraycopy(result, chunk[0], result, size, chunk[1]);
+            size += chunk[1];
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Returns results of the function applied to every value.
+     *
+     * @param threads number of threads to use
+     * @param values values to map
+     * @param function function applied to every value
+     * @return new array of results
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public long[] map(int threads, long[] values, LongUnaryOperator function) throws InterruptedException {
+        long[] result = new long[values.length];
+        evaluate(threads, values.length, (l, r) -> {
+            for (int i = l; i < r; i++) {
+                result[i] = function.applyAsLong(values[i]);
+            }
+            return null;
+        });
+        return result;
+    }
+
+    /**
+     * Returns maximum of the values.
+     *
+     * @param threads number of threads to use
+     * @param values values to search
+     * @return maximal value
+     * @throws IllegalArgumentException if the array is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public double maximum(int threads, double[] values) throws InterruptedException {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Unable to handle empty array");
+        }
+        List<Double> maxima = evaluate(threads, values.length, (l, r) -> {
+            double max = values[l];
+            for (int i = l + 1; i < r; i++) {
+                max = Math.max(max, values[i]);
+            }
+            return max;
+        });
+        double result = maxima.get(0);
+        for (double max : maxima) {
+            result = Math.max(result, max);
+        }
+        return result;
+    }
+
+    /**
+     * Returns minimum of the values.
+     *
+     * @param threads number of threads to use
+     * @param values values to search
+     * @return minimal value
+     * @throws IllegalArgumentException if the array is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public double minimum(int threads, double[] values) throws InterruptedException {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Unable to handle empty array");
+        }
+        List<Double> minima = evaluate(threads, values.length, (l, r) -> {
+            double min = values[l];
+            for (int i = l + 1; i < r; i++) {
+                min = Math.min(min, values[i]);
+            }
+            return min;
+        });
+        double result = minima.get(0);
+        for (double min : minima) {
+            result = Math.min(result, min);
+        }
+        return result;
+    }
+
+    /**
+     * Returns sum of the values. Chunks are summed separately, so rounding may differ from a sequential sum.
+     *
+     * @param threads number of threads to use
+     * @param values values to sum
+     * @return sum of the values, {@code 0} for an empty array
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public double sum(int threads, double[] values) throws InterruptedException {
+        double result = 0;
+        for (double sum : evaluate(threads, values.length, (l, r) -> {
+            double sum = 0;
+            for (int i = l; i < r; i++) {
+                sum += values[i];
+            }
+            return sum;
+        })) {
+            result += sum;
+        }
+        return result;
+    }
+
+    /**
+     * Returns number of values matching the predicate.
+     *
+     * @param threads number of threads to use
+     * @param values values to test
+     * @param predicate predicate to test values with
+     * @return number of matching values
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public int count(int threads, double[] values, DoublePredicate predicate) throws InterruptedException {
+        int result = 0;
+        for (int count : evaluate(threads, values.length, (l, r) -> {
+            int count = 0;
+            for (int i = l; i < r; i++) {
+                if (predicate.test(values[i])) {
+                    count++;
+                }
+            }
+            return count;
+        })) {
+            result += count;
+        }
+        return result;
+    }
+
+    /**
+     * Returns values matching the predicate in their original order.
+     * Chunks write matches into the output array at their own offsets, which are compacted afterwards.
+     *
+     * @param threads number of threads to use
+     * @param values values to filter
+     * @param predicate predicate to test values with
+     * @return new array of matching values
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public double[] filter(int threads, double[] values, DoublePredicate predicate) throws InterruptedException {
+        double[] result = new double[values.length];
+        List<int[]> chunks = evaluate(threads, values.length, (l, r) -> {
+            int j = l;
+            for (int i = l; i < r; i++) {
+                if (predicate.test(values[i])) {
+                    result[j++] = values[i];
+                }
+            }
+            return new int[]{l, j - l};
+        });
+        int size = 0;
+        for (int[] chunk : chunks) {
+            System.arraycopy(result, chunk[0], result, size, chunk[1]);
+            size += chunk[1];
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Returns results of the function applied to every value.
+     *
+     * @param threads number of threads to use
+     * @param values values to map
+     * @param function function applied to every value
+     * @return new array of results
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public double[] map(int threads, double[] values, DoubleUnaryOperator function) throws InterruptedException {
+        double[] result = new double[values.length];
+        evaluate(threads, values.length, (l, r) -> {
+            for (int i = l; i < r; i++) {
+                result[i] = function.applyAsDouble(values[i]);
+            }
+            return null;
+        });
+        return result;
+    }
+
+    // Lazy sources. Elements are consumed in batches of bounded size, so memory is O(threads * batch) plus
+    // the result. Spliterators can be passed as Spliterators.iterator(spliterator).
+
+    /**
+     * Returns the first maximum of a lazy source.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, read in batches
+     * @param comparator order of elements
+     * @param <T> type of elements
+     * @return maximal element
+     * @throws IllegalArgumentException if the source is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> T maximum(int threads, Iterator<? extends T> source, Comparator<? super T> comparator)
+            throws InterruptedException {
+        BinaryOperator<T> maxBy = BinaryOperator.maxBy(comparator);
+        return this.<T, Optional<T>>fold(threads, source, batch -> batch.stream().reduce(maxBy),
+                Optional.empty(), (a, b) -> a.isEmpty() ? b : Optional.of(maxBy.apply(a.get(), b.get())), a -> false)
+                .orElseThrow(() -> new IllegalArgumentException("Unable to handle empty source"));
+    }
+
+    /**
+     * Returns the first minimum of a lazy source.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, read in batches
+     * @param comparator order of elements
+     * @param <T> type of elements
+     * @return minimal element
+     * @throws IllegalArgumentException if the source is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> T minimum(int threads, Iterator<? extends T> source, Comparator<? super T> comparator)
+            throws InterruptedException {
+        return maximum(threads, source, Collections.reverseOrder(comparator));
+    }
+
+    /**
+     * Checks that all elements of a lazy source match the predicate. The source is not read further once a
+     * counterexample is found.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, read in batches
+     * @param predicate predicate to test elements with
+     * @param <T> type of elements
+     * @return {@code true} if all elements match
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> boolean all(int threads, Iterator<? extends T> source, Predicate<? super T> predicate)
+            throws InterruptedException {
+        final AtomicBoolean decided = new AtomicBoolean();
+        return fold(threads, source, batch -> batch.stream().allMatch(item -> {
+            if (decided.get()) {
+                return false;
+            }
+            if (predicate.test(item)) {
+                return true;
+            }
+            decided.set(true);
+            return false;
+        }), true, Boolean::logicalAnd, result -> !result);
+    }
+
+    /**
+     * Checks that some element of a lazy source matches the predicate. The source is not read further once a match
+     * is found.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, read in batches
+     * @param predicate predicate to test elements with
+     * @param <T> type of elements
+     * @return {@code true} if some element matches
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> boolean any(int threads, Iterator<? extends T> source, Predicate<? super T> predicate)
+            throws InterruptedException {
+        return !all(threads, source, predicate.negate());
+    }
+
+    /**
+     * Concatenates string representations of elements of a lazy source.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, read in batches
+     * @return concatenated strings
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public String join(int threads, Iterator<?> source) throws InterruptedException {
+        return fold(threads, source, batch -> {
+            StringBuilder builder = new StringBuilder();
+            batch.forEach(builder::append);
+            return builder;
+        }, new StringBuilder(), StringBuilder::append, result -> false).toString();
+    }
+
+    /**
+     * Returns elements of a lazy source matching the predicate, in source order.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, read in batches
+     * @param predicate predicate to test elements with
+     * @param <T> type of elements
+     * @return matching elements
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> List<T> filter(int threads, Iterator<? extends T> source, Predicate<? super T> predicate)
+            throws InterruptedException {
+        List<T> result = new ArrayList<>();
+        return this.<T, List<T>>fold(threads, source, batch -> {
+            batch.removeIf(predicate.negate());
+            return batch;
+        }, result, IterativeParallelism::append, list -> false);
+    }
+
+    /**
+     * Returns results of the function applied to elements of a lazy source, in source order.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, read in batches
+     * @param function function applied to every element
+     * @param <T> type of elements
+     * @param <U> type of results
+     * @return results of the function
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T, U> List<U> map(int threads, Iterator<? extends T> source, Function<? super T, ? extends U> function)
+            throws InterruptedException {
+        List<U> result = new ArrayList<>();
+        return this.<T, List<U>>fold(threads, source, batch -> {
+            List<U> values = new ArrayList<>(batch.size());
+            batch.forEach(item -> values.add(function.apply(item)));
+            return values;
+        }, result, IterativeParallelism::append, list -> false);
+    }
+
+    /**
+     * Reduces elements of a lazy source with an associative operator.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, read in batches
+     * @param identity identity element of the operator
+     * @param operator associative operator
+     * @param <T> type of elements
+     * @return reduction of all elements, {@code identity} for an empty source
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> T reduce(int threads, Iterator<? extends T> source, T identity, BinaryOperator<T> operator)
+            throws InterruptedException {
+        return mapReduce(threads, source, Function.<T>identity(), new Monoid<>(identity, operator));
+    }
+
+    /**
+     * Maps elements of a lazy source and reduces results with a monoid.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, read in batches
+     * @param mapper function applied to every element
+     * @param monoid monoid used to combine results
+     * @param <T> type of elements
+     * @param <R> type of results
+     * @return reduction of mapped elements, identity of the monoid for an empty source
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T, R> R mapReduce(int threads, Iterator<? extends T> source, Function<? super T, ? extends R> mapper,
+                              Monoid<R> monoid) throws InterruptedException {
+        BinaryOperator<R> operator = monoid.getOperator();
+        return fold(threads, source, batch -> {
+            R value = monoid.getIdentity();
+            for (T item : batch) {
+                value = operator.apply(value, mapper.apply(item));
+            }
+            return value;
+        }, monoid.getIdentity(), operator, value -> false);
+    }
+
+    private static <T> List<T> append(List<T> result, List<T> values) {
+        result.addAll(values);
+        return result;
+    }
+
+    /**
+     * Returns the first maximum of a lazy source. The stream is consumed in batches, as by the {@link Iterator}
+     * overload.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, consumed through its iterator
+     * @param comparator order of elements
+     * @param <T> type of elements
+     * @return maximal element
+     * @throws IllegalArgumentException if the source is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> T maximum(int threads, Stream<? extends T> source, Comparator<? super T> comparator)
+            throws InterruptedException {
+        return maximum(threads, source.iterator(), comparator);
+    }
+
+    /**
+     * Returns the first minimum of a lazy source. The stream is consumed in batches, as by the {@link Iterator}
+     * overload.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, consumed through its iterator
+     * @param comparator order of elements
+     * @param <T> type of elements
+     * @return minimal element
+     * @throws IllegalArgumentException if the source is empty
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> T minimum(int threads, Stream<? extends T> source, Comparator<? super T> comparator)
+            throws InterruptedException {
+        return minimum(threads, source.iterator(), comparator);
+    }
+
+    /**
+     * Checks that all elements of a lazy source match the predicate. The source is not read further once a
+     * counterexample is found. The stream is consumed in batches, as by the {@link Iterator} overload.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, consumed through its iterator
+     * @param predicate predicate to test elements with
+     * @param <T> type of elements
+     * @return {@code true} if all elements match
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> boolean all(int threads, Stream<? extends T> source, Predicate<? super T> predicate)
+            throws InterruptedException {
+        return all(threads, source.iterator(), predicate);
+    }
+
+    /**
+     * Checks that some element of a lazy source matches the predicate. The source is not read further once a match
+     * is found. The stream is consumed in batches, as by the {@link Iterator} overload.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, consumed through its iterator
+     * @param predicate predicate to test elements with
+     * @param <T> type of elements
+     * @return {@code true} if some element matches
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> boolean any(int threads, Stream<? extends T> source, Predicate<? super T> predicate)
+            throws InterruptedException {
+        return any(threads, source.iterator(), predicate);
+    }
+
+    /**
+     * Concatenates string representations of elements of a lazy source. The stream is consumed in batches, as by
+     * the {@link Iterator} overload.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, consumed through its iterator
+     * @return concatenated strings
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public String join(int threads, Stream<?> source) throws InterruptedException {
+        return join(threads, source.iterator());
+    }
+
+    /**
+     * Returns elements of a lazy source matching the predicate, in source order. The stream is consumed in batches,
+     * as by the {@link Iterator} overload.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, consumed through its iterator
+     * @param predicate predicate to test elements with
+     * @param <T> type of elements
+     * @return matching elements
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> List<T> filter(int threads, Stream<? extends T> source, Predicate<? super T> predicate)
+            throws InterruptedException {
+        return filter(threads, source.iterator(), predicate);
+    }
+
+    /**
+     * Returns results of the function applied to elements of a lazy source, in source order. The stream is consumed
+     * in batches, as by the {@link Iterator} overload.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, consumed through its iterator
+     * @param function function applied to every element
+     * @param <T> type of elements
+     * @param <U> type of results
+     * @return results of the function
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T, U> List<U> map(int threads, Stream<? extends T> source, Function<? super T, ? extends U> function)
+            throws InterruptedException {
+        return map(threads, source.iterator(), function);
+    }
+
+    /**
+     * Reduces elements of a lazy source with an associative operator. The stream is consumed in batches, as by the
+     * {@link Iterator} overload.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, consumed through its iterator
+     * @param identity identity element of the operator
+     * @param operator associative operator
+     * @param <T> type of elements
+     * @return reduction of all elements, {@code identity} for an empty source
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T> T reduce(int threads, Stream<? extends T> source, T identity, BinaryOperator<T> operator)
+            throws InterruptedException {
+        return reduce(threads, source.iterator(), identity, operator);
+    }
+
+    /**
+     * Maps elements of a lazy source and reduces results with a monoid. The stream is consumed in batches, as by
+     * the {@link Iterator} overload.
+     *
+     * @param threads number of threads to use
+     * @param source source of elements, consumed through its iterator
+     * @param mapper function applied to every element
+     * @param monoid monoid used to combine results
+     * @param <T> type of elements
+     * @param <R> type of results
+     * @return reduction of mapped elements, identity of the monoid for an empty source
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    public <T, R> R mapReduce(int threads, Stream<? extends T> source, Function<? super T, ? extends R> mapper,
+                              Monoid<R> monoid) throws InterruptedException {
+        return mapReduce(threads, source.iterator(), mapper, monoid);
     }
 }
@@ -0,0 +1,27 @@
+package ru.ifmo.rain.kramer.concurrent;
+
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * Associative operator with an identity element.
+ *
+ * @param <T> type of values
+ */
+public class Monoid<T> {
+    private final T identity;
+    private final BinaryOperator<T> operator;
+
+    public Monoid(T identity, BinaryOperator<T> operator) {
+        this.identity = identity;
+        this.operator = Objects.requireNonNull(operator);
+    }
+
+    public T getIdentity() {
+        return identity;
+    }
+
+    public BinaryOperator<T> getOperator() {
+        return operator;
+    }
+}
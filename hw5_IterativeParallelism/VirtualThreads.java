@@ -0,0 +1,42 @@
+package ru.ifmo.rain.kramer.concurrent;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads of Java 21+ from code compiled for older releases.
+ * On runtimes without virtual threads platform threads are used instead.
+ */
+public final class VirtualThreads {
+    private static final ThreadFactory VIRTUAL = lookup();
+
+    private VirtualThreads() {
+    }
+
+    private static ThreadFactory lookup() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Either an old runtime or virtual threads are a disabled preview feature
+            return null;
+        }
+    }
+
+    /**
+     * Tells whether the runtime supports virtual threads.
+     *
+     * @return {@code true} if {@link #factory()} creates virtual threads
+     */
+    public static boolean isAvailable() {
+        return VIRTUAL != null;
+    }
+
+    /**
+     * Returns a factory of virtual threads, or of platform threads if virtual threads are not available.
+     *
+     * @return thread factory
+     */
+    public static ThreadFactory factory() {
+        return VIRTUAL != null ? VIRTUAL : Thread::new;
+    }
+}
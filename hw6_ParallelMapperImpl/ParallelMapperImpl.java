@@ -0,0 +1,560 @@
+package ru.ifmo.rain.kramer.mapper;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+import ru.ifmo.rain.kramer.concurrent.VirtualThreads;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * {@link ParallelMapper} running tasks of all clients on a fixed set of worker threads.
+ * In {@link Mode#FIFO} mode tasks are kept in one lock-free FIFO queue; idle workers block on a semaphore
+ * counting queued tasks, so there is no busy waiting. In {@link Mode#FAIR} mode workers take elements from
+ * the {@code run} calls in flight in turn. Every {@link #run} call tracks its completion with a single atomic
+ * counter and the calling thread is woken only once, when the last of its tasks is done.
+ * {@link #runAsync} calls don't block any thread at all and may deliver results one by one.
+ * <p>
+ * Workers take consecutive arguments in chunks. Chunk size of a call starts at one element and follows
+ * the measured cost of its function, so that a chunk takes about {@value #CHUNK_NANOS} ns, but every worker
+ * still gets several chunks. Results are written straight into a presized array.
+ */
+public class ParallelMapperImpl implements ParallelMapper {
+
+    /**
+     * Order in which elements of concurrent {@code run} calls are processed.
+     */
+    public enum Mode {
+        /**
+         * Elements are processed in arrival order, so a long call delays every call made after it.
+         */
+        FIFO,
+        /**
+         * Workers take one chunk at a time from the calls in flight in round-robin order.
+         * Calls of higher priority are served first; a call never occupies more workers than its concurrency cap.
+         */
+        FAIR
+    }
+
+    /**
+     * Order in which {@link #runAsync(Function, List, Order, ObjIntConsumer)} delivers results.
+     */
+    public enum Order {
+        /**
+         * Results are delivered in order of arguments, each as soon as all preceding ones are delivered.
+         */
+        INDEX,
+        /**
+         * Results are delivered as soon as they are computed.
+         */
+        COMPLETION
+    }
+
+    /**
+     * Tenant of {@code run} calls made through the {@link ParallelMapper} interface.
+     */
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final long CHUNK_NANOS = 50_000;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final Mode mode;
+    private final List<Thread> workers;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Semaphore available = new Semaphore(0);
+    // Round-robin queues of calls by descending priority, guarded by itself
+    private final TreeMap<Integer, Deque<Run<?, ?>>> levels = new TreeMap<>(Collections.reverseOrder());
+    private final Set<Run<?, ?>> running = ConcurrentHashMap.newKeySet();
+    private final Map<String, TenantStats> tenants = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Creates a mapper with the given number of worker threads processing elements in arrival order.
+     *
+     * @param threads number of worker threads
+     */
+    public ParallelMapperImpl(int threads) {
+        this(threads, Mode.FIFO);
+    }
+
+    /**
+     * Creates a mapper with the given number of worker threads and scheduling mode.
+     *
+     * @param threads number of worker threads
+     * @param mode order in which elements of concurrent calls are processed
+     */
+    public ParallelMapperImpl(int threads, Mode mode) {
+        this(threads, mode, Thread::new);
+    }
+
+    /**
+     * Creates a mapper processing elements in arrival order on platform or virtual worker threads.
+     * Virtual workers suit functions blocking on I/O: {@code threads} may then be much greater than
+     * the number of processors. If the runtime has no virtual threads, platform threads are used.
+     *
+     * @param threads number of worker threads, i.e. maximal number of elements processed at once
+     * @param virtual whether worker threads should be virtual
+     */
+    public ParallelMapperImpl(int threads, boolean virtual) {
+        this(threads, Mode.FIFO, virtual ? VirtualThreads.factory() : Thread::new);
+    }
+
+    /**
+     * Creates a mapper with the given number of worker threads created by the factory.
+     *
+     * @param threads number of worker threads
+     * @param mode order in which elements of concurrent calls are processed
+     * @param threadFactory factory of worker threads
+     */
+    public ParallelMapperImpl(int threads, Mode mode, ThreadFactory threadFactory) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be at least 1.");
+        }
+        this.mode = Objects.requireNonNull(mode);
+        workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = threadFactory.newThread(mode == Mode.FAIR ? this::workFair : this::work);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    private void work() {
+        try {
+            while (!Thread.interrupted()) {
+                available.acquire();
+                tasks.poll().run();
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private void workFair() {
+        try {
+            while (!Thread.interrupted()) {
+                Run<?, ?> run;
+                int from;
+                int to;
+                synchronized (levels) {
+                    while ((run = claim()) == null) {
+                        levels.wait();
+                    }
+                    from = run.next;
+                    to = run.next = Math.min(run.size(), from + run.chunkSize(from));
+                    run.active++;
+                    if (run.next < run.size()) {
+                        levels.get(run.priority).addLast(run);
+                    }
+                }
+                run.apply(from, to);
+                synchronized (levels) {
+                    if (run.active-- == run.concurrency && run.next < run.size()) {
+                        levels.notify();
+                    }
+                }
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    // Removes the first call which may start an element now, dropping finished and failed ones
+    private Run<?, ?> claim() {
+        for (Iterator<Deque<Run<?, ?>>> it = levels.values().iterator(); it.hasNext(); ) {
+            Deque<Run<?, ?>> level = it.next();
+            for (int i = level.size(); i > 0; i--) {
+                Run<?, ?> run = level.pollFirst();
+                if (run.isDone()) {
+                    run.stats.dropped(run.size() - run.next);
+                    run.next = run.size();
+                } else if (run.active < run.concurrency) {
+                    return run;
+                } else {
+                    level.addLast(run);
+                }
+            }
+            if (level.isEmpty()) {
+                it.remove();
+            }
+        }
+        return null;
+    }
+
+    // Processes chunks of the call until all of them are taken or the mapper is closed, used in FIFO mode
+    private static void drain(Run<?, ?> run) {
+        while (!run.isDone()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            int from = run.cursor.get();
+            if (from >= run.size()) {
+                return;
+            }
+            int to = Math.min(run.size(), from + run.chunkSize(from));
+            if (run.cursor.compareAndSet(from, to)) {
+                run.apply(from, to);
+            }
+        }
+        run.stats.dropped(Math.max(0, run.size() - run.cursor.getAndSet(run.size())));
+    }
+
+    /**
+     * State of one {@link #run} call: results, number of unfinished elements, the first failure
+     * and the measured cost of the function. A call is completed either by waking the calling thread
+     * or by completing its future.
+     */
+    private static class Run<T, R> {
+        private final Function<? super T, ? extends R> function;
+        private final List<? extends T> args;
+        private final Object[] values;
+        private final AtomicInteger remaining;
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final Thread caller;
+        private final CompletableFuture<List<R>> future;
+        private final ObjIntConsumer<? super R> consumer;
+        private final boolean[] completed;
+        private final TenantStats stats;
+        private final long submitted = System.nanoTime();
+        private final int priority;
+        private final int concurrency;
+        private final int workers;
+        private volatile boolean done;
+        // Smoothed cost of one element, 0 until the first chunk is done
+        private volatile double elementNanos;
+        // Next unclaimed element in FIFO mode
+        private final AtomicInteger cursor = new AtomicInteger();
+        // Guarded by the scheduler in FAIR mode
+        private int next;
+        private int active;
+        // Number of results passed to the consumer in INDEX order, guarded by this
+        private int delivered;
+
+        Run(Function<? super T, ? extends R> function, List<? extends T> args, TenantStats stats,
+            int priority, int concurrency, int workers, boolean async, Order order, ObjIntConsumer<? super R> consumer) {
+            this.function = function;
+            this.args = args;
+            this.values = new Object[args.size()];
+            this.remaining = new AtomicInteger(args.size());
+            this.caller = async ? null : Thread.currentThread();
+            this.future = async ? new CompletableFuture<>() : null;
+            this.consumer = consumer;
+            this.completed = order == Order.INDEX ? new boolean[args.size()] : null;
+            this.stats = stats;
+            this.priority = priority;
+            this.concurrency = concurrency;
+            this.workers = Math.min(workers, concurrency);
+        }
+
+        int chunkSize(int from) {
+            double nanos = elementNanos;
+            if (nanos == 0) {
+                return 1;
+            }
+            int balanced = (size() - from + workers * CHUNKS_PER_THREAD - 1) / (workers * CHUNKS_PER_THREAD);
+            return (int) Math.max(1, Math.min(balanced, CHUNK_NANOS / nanos));
+        }
+
+        int size() {
+            return values.length;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        void apply(int from, int to) {
+            if (error.get() == null) {
+                long start = System.nanoTime();
+                stats.started(to - from, start - submitted);
+                int i = from;
+                try {
+                    for (; i < to; i++) {
+                        values[i] = function.apply(args.get(i));
+                    }
+                } catch (RuntimeException | Error e) {
+                    fail(e);
+                }
+                if (consumer != null && i > from) {
+                    deliver(from, i);
+                }
+                double nanos = Math.max(1, System.nanoTime() - start) / (double) (to - from);
+                double previous = elementNanos;
+                elementNanos = previous == 0 ? nanos : (3 * previous + nanos) / 4;
+            } else {
+                stats.dropped(to - from);
+            }
+            if (remaining.addAndGet(from - to) == 0) {
+                finish();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized void deliver(int from, int to) {
+            try {
+                if (completed == null) {
+                    for (int i = from; i < to; i++) {
+                        consumer.accept((R) values[i], i);
+                    }
+                } else {
+                    Arrays.fill(completed, from, to, true);
+                    while (delivered < completed.length && completed[delivered] && error.get() == null) {
+                        consumer.accept((R) values[delivered], delivered);
+                        delivered++;
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+        }
+
+        void fail(Throwable e) {
+            if (!done && error.compareAndSet(null, e)) {
+                finish();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void finish() {
+            done = true;
+            if (future == null) {
+                LockSupport.unpark(caller);
+            } else if (error.get() == null) {
+                future.complete((List<R>) Arrays.asList(values));
+            } else {
+                future.completeExceptionally(error.get());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> await() throws InterruptedException {
+            while (!done) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    // Remaining tasks are skipped by workers
+                    fail(new InterruptedException());
+                    throw new InterruptedException();
+                }
+            }
+            Throwable e = error.get();
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else if (e instanceof Error) {
+                throw (Error) e;
+            }
+            return (List<R>) Arrays.asList(values);
+        }
+    }
+
+    /**
+     * Applies the function to every argument in parallel on behalf of {@link #DEFAULT_TENANT}.
+     * The first exception thrown by the function is rethrown.
+     *
+     * @throws IllegalStateException if the mapper is or becomes closed before all tasks are done
+     */
+    @Override
+    public <T, R> List<R> run(Function<? super T, ? extends R> f, List<? extends T> args) throws InterruptedException {
+        return run(DEFAULT_TENANT, 0, Integer.MAX_VALUE, f, args);
+    }
+
+    /**
+     * Applies the function to every argument in parallel on behalf of the given tenant.
+     * Priority and concurrency cap are taken into account in {@link Mode#FAIR} mode only.
+     * The first exception thrown by the function is rethrown.
+     *
+     * @param tenant name of the client, used for statistics
+     * @param priority priority of the call, calls with greater priority are served first
+     * @param concurrency maximal number of elements of this call processed at once
+     * @param f function to apply
+     * @param args arguments of the function
+     * @param <T> type of arguments
+     * @param <R> type of results
+     * @return results of the function in order of arguments
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws IllegalStateException if the mapper is or becomes closed before all tasks are done
+     */
+    public <T, R> List<R> run(String tenant, int priority, int concurrency,
+                              Function<? super T, ? extends R> f, List<? extends T> args) throws InterruptedException {
+        Objects.requireNonNull(f);
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be at least 1.");
+        }
+        if (closed) {
+            throw new IllegalStateException("Mapper is closed");
+        }
+        if (args.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Run<T, R> run = new Run<>(f, args, getStats(tenant), priority, concurrency, workers.size(),
+                false, null, null);
+        try {
+            submit(run);
+            return run.await();
+        } finally {
+            running.remove(run);
+        }
+    }
+
+    /**
+     * Applies the function to every argument in parallel without blocking the calling thread.
+     * Cancelling the returned future skips elements which are not started yet.
+     * Dependent stages without an explicit executor run on worker threads.
+     *
+     * @param f function to apply
+     * @param args arguments of the function
+     * @param <T> type of arguments
+     * @param <R> type of results
+     * @return future of the results of the function in order of arguments, completed exceptionally with
+     * the first exception thrown by the function or with {@link IllegalStateException} if the mapper is closed
+     */
+    public <T, R> CompletableFuture<List<R>> runAsync(Function<? super T, ? extends R> f, List<? extends T> args) {
+        return runAsync(f, args, null, null);
+    }
+
+    /**
+     * Applies the function to every argument in parallel without blocking the calling thread and passes
+     * every result with its index to the consumer as soon as the order permits.
+     * The consumer is called from worker threads, one call at a time. An exception thrown by the consumer
+     * fails the call. Cancelling the returned future skips elements which are not started yet.
+     *
+     * @param f function to apply
+     * @param args arguments of the function
+     * @param order order of delivery of results
+     * @param consumer consumer of results and their indices
+     * @param <T> type of arguments
+     * @param <R> type of results
+     * @return future of the results of the function in order of arguments, completed after all results are
+     * delivered
+     */
+    public <T, R> CompletableFuture<List<R>> runAsync(Function<? super T, ? extends R> f, List<? extends T> args,
+                                                      Order order, ObjIntConsumer<? super R> consumer) {
+        Objects.requireNonNull(f);
+        if (consumer != null) {
+            Objects.requireNonNull(order);
+        }
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Mapper is closed"));
+        }
+        if (args.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        Run<T, R> run = new Run<>(f, args, getStats(DEFAULT_TENANT), 0, Integer.MAX_VALUE, workers.size(),
+                true, order, consumer);
+        // Cancellation of the future skips the remaining elements
+        run.future.whenComplete((result, e) -> {
+            if (e != null) {
+                run.fail(e);
+            }
+            running.remove(run);
+        });
+        try {
+            submit(run);
+        } catch (IllegalStateException e) {
+            run.fail(e);
+        }
+        return run.future;
+    }
+
+    // Stops counting elements of the call which no worker has claimed as queued
+    private void dropUnclaimed(Run<?, ?> run) {
+        if (mode == Mode.FAIR) {
+            synchronized (levels) {
+                run.stats.dropped(run.size() - run.next);
+                run.next = run.size();
+            }
+        } else {
+            run.stats.dropped(Math.max(0, run.size() - run.cursor.getAndSet(run.size())));
+        }
+    }
+
+    private TenantStats getStats(String tenant) {
+        return tenants.computeIfAbsent(Objects.requireNonNull(tenant), TenantStats::new);
+    }
+
+    private void submit(Run<?, ?> run) {
+        running.add(run);
+        if (closed) {
+            throw new IllegalStateException("Mapper is closed");
+        }
+        run.stats.submitted(run.size());
+        if (mode == Mode.FAIR) {
+            synchronized (levels) {
+                levels.computeIfAbsent(run.priority, p -> new ArrayDeque<>()).addLast(run);
+                levels.notifyAll();
+            }
+        } else {
+            int drainers = Math.min(workers.size(), run.size());
+            for (int i = 0; i < drainers; i++) {
+                tasks.add(() -> drain(run));
+            }
+            available.release(drainers);
+        }
+    }
+
+    /**
+     * Returns statistics of the given tenant.
+     *
+     * @param tenant name of the tenant
+     * @return statistics of the tenant, {@code null} if it made no calls
+     */
+    public TenantStats getTenantStats(String tenant) {
+        return tenants.get(tenant);
+    }
+
+    /**
+     * Returns statistics of all tenants which made calls.
+     *
+     * @return live view of statistics by tenant name
+     */
+    public Map<String, TenantStats> getTenantStats() {
+        return Collections.unmodifiableMap(tenants);
+    }
+
+    /**
+     * Stops all worker threads. Unfinished {@link #run} calls fail with {@link IllegalStateException}.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        workers.forEach(Thread::interrupt);
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        tasks.clear();
+        synchronized (levels) {
+            levels.clear();
+        }
+        running.forEach(run -> {
+            dropUnclaimed(run);
+            run.fail(new IllegalStateException("Mapper is closed"));
+        });
+        if (interrupted) {
+            throw new InterruptedException();
+        }
+    }
+}
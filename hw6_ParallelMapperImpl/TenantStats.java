@@ -0,0 +1,100 @@
+package ru.ifmo.rain.kramer.mapper;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queue statistics of one tenant of {@link ParallelMapperImpl}.
+ * Wait time of an element is the time from submission of its {@code run} call until a worker starts
+ * the chunk containing it.
+ */
+public class TenantStats {
+    private final String tenant;
+    private final AtomicLong queued = new AtomicLong();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    TenantStats(String tenant) {
+        this.tenant = tenant;
+    }
+
+    void submitted(int elements) {
+        runs.increment();
+        queued.addAndGet(elements);
+    }
+
+    void started(int elements, long waitNanos) {
+        queued.addAndGet(-elements);
+        started.add(elements);
+        this.waitNanos.add(elements * waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    void dropped(int elements) {
+        queued.addAndGet(-elements);
+    }
+
+    /**
+     * Returns name of the tenant.
+     *
+     * @return tenant name
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Returns number of submitted elements which are not started yet.
+     *
+     * @return current queue depth
+     */
+    public long getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Returns number of {@code run} calls made by the tenant.
+     *
+     * @return number of runs
+     */
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    /**
+     * Returns number of started elements.
+     *
+     * @return number of started elements
+     */
+    public long getStarted() {
+        return started.sum();
+    }
+
+    /**
+     * Returns average wait time of started elements.
+     *
+     * @return average wait time in nanoseconds, {@code 0} if nothing was started
+     */
+    public long getAverageWaitNanos() {
+        long count = started.sum();
+        return count == 0 ? 0 : waitNanos.sum() / count;
+    }
+
+    /**
+     * Returns maximal wait time of started elements.
+     *
+     * @return maximal wait time in nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: %d runs, %d queued, %d started, wait avg %.3f ms, max %.3f ms", tenant,
+                getRuns(), getQueued(), getStarted(), getAverageWaitNanos() / 1e6, getMaxWaitNanos() / 1e6);
+    }
+}
@@ -0,0 +1,248 @@
+package ru.ifmo.rain.kramer.crawler;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput statistics of a {@link WebCrawler} or of one of its crawls.
+ * Downloads are counted by the crawl which started them; pages taken from the cache are counted as pages only.
+ */
+public class CrawlMetrics {
+
+    /**
+     * Number of tasks in some state: current value and maximum over time.
+     */
+    public static class Gauge {
+        private final AtomicLong current = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void add(long delta) {
+            long value = current.addAndGet(delta);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        /**
+         * Returns current value.
+         *
+         * @return number of tasks now
+         */
+        public long getCurrent() {
+            return current.get();
+        }
+
+        /**
+         * Returns maximal value.
+         *
+         * @return maximal number of tasks at once
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        @Override
+        public String toString() {
+            return getCurrent() + " (max " + getMax() + ")";
+        }
+    }
+
+    private final long start = System.nanoTime();
+    private volatile long finish;
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder downloads = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder extractions = new LongAdder();
+    private final Gauge queuedDownloads = new Gauge();
+    private final Gauge activeDownloads = new Gauge();
+    private final Gauge queuedExtractions = new Gauge();
+    private final Gauge activeExtractions = new Gauge();
+    private final AtomicLong maxHostConcurrency = new AtomicLong();
+    private final LatencyHistogram downloadLatency = new LatencyHistogram();
+    private final LatencyHistogram extractLatency = new LatencyHistogram();
+
+    /**
+     * Creates empty metrics. Pages per second are measured from this moment.
+     */
+    public CrawlMetrics() {
+    }
+
+    void page() {
+        pages.increment();
+    }
+
+    void downloadQueued() {
+        queuedDownloads.add(1);
+    }
+
+    void downloadStarted(int hostConcurrency) {
+        queuedDownloads.add(-1);
+        activeDownloads.add(1);
+        maxHostConcurrency.accumulateAndGet(hostConcurrency, Math::max);
+    }
+
+    void downloadDropped() {
+        queuedDownloads.add(-1);
+    }
+
+    void downloadFinished(long nanos, boolean success) {
+        activeDownloads.add(-1);
+        downloadLatency.record(nanos);
+        downloads.increment();
+        if (!success) {
+            failures.increment();
+        }
+    }
+
+    void extractionQueued() {
+        queuedExtractions.add(1);
+    }
+
+    void extractionStarted() {
+        queuedExtractions.add(-1);
+        activeExtractions.add(1);
+    }
+
+    void extractionDropped() {
+        queuedExtractions.add(-1);
+    }
+
+    void extractionFinished(long nanos) {
+        activeExtractions.add(-1);
+        extractLatency.record(nanos);
+        extractions.increment();
+    }
+
+    void finish() {
+        finish = System.nanoTime();
+    }
+
+    /**
+     * Returns number of downloaded pages, including pages taken from the cache.
+     *
+     * @return number of pages
+     */
+    public long getPages() {
+        return pages.sum();
+    }
+
+    /**
+     * Returns number of finished downloads, including failed ones.
+     *
+     * @return number of downloads
+     */
+    public long getDownloads() {
+        return downloads.sum();
+    }
+
+    /**
+     * Returns number of failed downloads.
+     *
+     * @return number of failures
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns number of pages links were extracted from.
+     *
+     * @return number of extractions
+     */
+    public long getExtractions() {
+        return extractions.sum();
+    }
+
+    /**
+     * Returns downloads waiting for a host slot or a download thread.
+     *
+     * @return queue depth of downloads
+     */
+    public Gauge getQueuedDownloads() {
+        return queuedDownloads;
+    }
+
+    /**
+     * Returns downloads in progress.
+     *
+     * @return number of running downloads
+     */
+    public Gauge getActiveDownloads() {
+        return activeDownloads;
+    }
+
+    /**
+     * Returns extractions waiting for the previous level or an extractor thread.
+     *
+     * @return queue depth of extractions
+     */
+    public Gauge getQueuedExtractions() {
+        return queuedExtractions;
+    }
+
+    /**
+     * Returns extractions in progress.
+     *
+     * @return number of running extractions
+     */
+    public Gauge getActiveExtractions() {
+        return activeExtractions;
+    }
+
+    /**
+     * Returns maximal number of pages downloaded from one host at once.
+     *
+     * @return maximal per-host concurrency
+     */
+    public long getMaxHostConcurrency() {
+        return maxHostConcurrency.get();
+    }
+
+    /**
+     * Returns histogram of download durations.
+     *
+     * @return download latency
+     */
+    public LatencyHistogram getDownloadLatency() {
+        return downloadLatency;
+    }
+
+    /**
+     * Returns histogram of link extraction durations.
+     *
+     * @return extraction latency
+     */
+    public LatencyHistogram getExtractLatency() {
+        return extractLatency;
+    }
+
+    /**
+     * Returns time since creation of the metrics, or duration of the crawl if it is finished.
+     *
+     * @return elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        long end = finish;
+        return (end == 0 ? System.nanoTime() : end) - start;
+    }
+
+    /**
+     * Returns average throughput.
+     *
+     * @return pages per second
+     */
+    public double getPagesPerSecond() {
+        return getPages() / Math.max(1e-9, getElapsedNanos() / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "pages=%d (%.1f/s) downloads=%d failures=%d extractions=%d%n"
+                        + "queued downloads=%s active downloads=%s max per host=%d%n"
+                        + "queued extractions=%s active extractions=%s%n"
+                        + "download latency: %s%n"
+                        + "extract latency: %s",
+                getPages(), getPagesPerSecond(), getDownloads(), getFailures(), getExtractions(),
+                queuedDownloads, activeDownloads, getMaxHostConcurrency(), queuedExtractions, activeExtractions,
+                downloadLatency, extractLatency);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.ifmo.rain.kramer.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Page delivered by {@link WebCrawler#publish}: its URL, distance from the start page and document.
+ */
+public class CrawledPage {
+    private final String url;
+    private final int depth;
+    private final DocumentCache.Page page;
+
+    CrawledPage(String url, int depth, DocumentCache.Page page) {
+        this.url = url;
+        this.depth = depth;
+        this.page = page;
+    }
+
+    /**
+     * Returns URL of the page.
+     *
+     * @return page URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns depth of the page, {@code 1} for the start page.
+     *
+     * @return page depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the downloaded document. Links are extracted once and shared with the crawler.
+     *
+     * @return page document
+     */
+    public Document getDocument() {
+        return this::getLinks;
+    }
+
+    /**
+     * Returns links of the page.
+     *
+     * @return absolute links of the page
+     * @throws IOException if links can't be extracted
+     */
+    public List<String> getLinks() throws IOException {
+        return page.getLinks();
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
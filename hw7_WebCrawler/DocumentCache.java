@@ -0,0 +1,213 @@
+package ru.ifmo.rain.kramer.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Bounded LRU cache of downloaded pages shared by all crawls of a {@link WebCrawler}.
+ * Size of a page is estimated by the total length of its links, so pages with many links take more room.
+ * Concurrent requests of a URL which is being downloaded share one download.
+ */
+public class DocumentCache {
+    /**
+     * Size of a page whose links are not extracted yet.
+     */
+    private static final int DOCUMENT_WEIGHT = 1024;
+    /**
+     * Size of a page apart from its links.
+     */
+    private static final int PAGE_WEIGHT = 64;
+
+    private final long capacity;
+    // All fields below are guarded by this
+    private final LinkedHashMap<String, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Page>> loading = new HashMap<>();
+    // Weights of pages are guarded by this as well
+    private long weight;
+    private long hits;
+    private long joins;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Downloaded page. Links are extracted once; after that the document itself is released.
+     */
+    class Page {
+        private final String url;
+        private Document document;
+        private List<String> links;
+        private long weight = DOCUMENT_WEIGHT;
+
+        Page(String url, Document document) {
+            this.url = url;
+            this.document = document;
+        }
+
+        synchronized List<String> getLinks() throws IOException {
+            if (links == null) {
+                links = List.copyOf(document.extractLinks());
+                document = null;
+                long size = PAGE_WEIGHT;
+                for (String link : links) {
+                    size += link.length();
+                }
+                resize(this, size);
+            }
+            return links;
+        }
+    }
+
+    /**
+     * Creates cache of the given capacity.
+     *
+     * @param capacity maximal total size of cached pages in characters, {@code 0} disables caching
+     */
+    public DocumentCache(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must be non-negative.");
+        }
+        this.capacity = capacity;
+    }
+
+    Page createPage(String url, Document document) {
+        return new Page(url, document);
+    }
+
+    /**
+     * Returns future of the page at the given URL.
+     * If the page is neither cached nor being downloaded, a new future is passed to the loader,
+     * which must complete it with the downloaded page or with the failure.
+     * Failures are not cached.
+     *
+     * @param url URL of the page
+     * @param loader starts download completing the given future
+     * @return future of the page
+     */
+    CompletableFuture<Page> get(String url, Consumer<CompletableFuture<Page>> loader) {
+        CompletableFuture<Page> future;
+        synchronized (this) {
+            Page page = pages.get(url);
+            if (page != null) {
+                hits++;
+                return CompletableFuture.completedFuture(page);
+            }
+            future = loading.get(url);
+            if (future != null) {
+                joins++;
+                return future;
+            }
+            misses++;
+            future = new CompletableFuture<>();
+            loading.put(url, future);
+        }
+        future.whenComplete((page, e) -> loaded(url, page));
+        loader.accept(future);
+        return future;
+    }
+
+    private synchronized void loaded(String url, Page page) {
+        loading.remove(url);
+        if (page != null && capacity > 0) {
+            pages.put(url, page);
+            weight += page.weight;
+            evict();
+        }
+    }
+
+    private synchronized void resize(Page page, long size) {
+        if (pages.get(page.url) == page) {
+            weight += size - page.weight;
+            page.weight = size;
+            evict();
+        } else {
+            page.weight = size;
+        }
+    }
+
+    private void evict() {
+        for (Iterator<Page> it = pages.values().iterator(); weight > capacity && it.hasNext(); ) {
+            weight -= it.next().weight;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Returns number of requests served from the cache.
+     *
+     * @return number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns number of requests which joined a download in progress.
+     *
+     * @return number of shared downloads
+     */
+    public synchronized long getJoins() {
+        return joins;
+    }
+
+    /**
+     * Returns number of requests which started a download.
+     *
+     * @return number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns number of pages evicted to stay within capacity.
+     *
+     * @return number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns share of requests which didn't start a download.
+     *
+     * @return hit ratio, {@code 0} if there were no requests
+     */
+    public synchronized double getHitRatio() {
+        long requests = hits + joins + misses;
+        return requests == 0 ? 0 : (hits + joins) / (double) requests;
+    }
+
+    /**
+     * Returns number of cached pages.
+     *
+     * @return number of cached pages
+     */
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    /**
+     * Returns total size of cached pages.
+     *
+     * @return total size in characters
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%d pages, %d of %d chars, %d hits, %d joins, %d misses, %d evictions, hit ratio %.3f",
+                pages.size(), weight, capacity, hits, joins, misses, evictions, getHitRatio());
+    }
+}
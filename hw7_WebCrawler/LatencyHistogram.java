@@ -0,0 +1,83 @@
+package ru.ifmo.rain.kramer.crawler;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with power-of-two buckets, so percentiles are exact up to a factor of two.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = Long.SIZE;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value) - 1 + (value == 0 ? 1 : 0));
+        count.increment();
+        total.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Returns number of recorded durations.
+     *
+     * @return number of durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns mean of recorded durations.
+     *
+     * @return mean duration in nanoseconds, {@code 0} if nothing was recorded
+     */
+    public long getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    /**
+     * Returns maximal recorded duration.
+     *
+     * @return maximal duration in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns upper bound of the given quantile of recorded durations.
+     *
+     * @param quantile quantile, from {@code 0} to {@code 1}
+     * @return duration in nanoseconds which at least {@code quantile} of durations don't exceed
+     */
+    public long getPercentile(double quantile) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += buckets.get(i);
+        }
+        long rank = (long) Math.ceil(quantile * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min(max.get(), i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms", getCount(),
+                getMean() / 1e6, getPercentile(0.5) / 1e6, getPercentile(0.9) / 1e6, getPercentile(0.99) / 1e6,
+                getMax() / 1e6);
+    }
+}
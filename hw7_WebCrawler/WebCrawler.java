@@ -0,0 +1,759 @@
+package ru.ifmo.rain.kramer.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.CachingDownloader;
+import info.kgeorgiy.java.advanced.crawler.Crawler;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import info.kgeorgiy.java.advanced.crawler.URLUtils;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Thread-safe {@link Crawler} downloading pages on a pool of {@code downloaders} threads and
+ * extracting links on a pool of {@code extractors} threads.
+ * Every host has its own queue of pending downloads: a download is handed to the pool only when the host
+ * has a free slot, so download threads never wait for a busy host while other hosts have work.
+ * Crawl state is kept per {@link #download} call and holds only the pages it discovered.
+ * Downloaded pages and their links are kept in a {@link DocumentCache} shared by all crawls,
+ * so pages common to several crawls are downloaded and parsed once.
+ * Throughput is tracked by {@link CrawlMetrics}, both for the whole crawler and for single crawls.
+ * Pages can also be received as they are downloaded through a {@link #publish publisher} of a crawl.
+ * Crawls with a timeout are expired by the JDK's shared timeout thread of {@link CompletableFuture#orTimeout}
+ * and terminated in the common pool, so no threads are started besides the two pools.
+ */
+public class WebCrawler implements Crawler {
+    private static final int DEFAULT_DEPTH = 1;
+    private static final int DEFAULT_THREADS = 8;
+    private static final long DEFAULT_CACHE_CAPACITY = 1 << 24;
+    /**
+     * Maximal number of pages of a published crawl downloaded ahead of the subscriber's demand.
+     */
+    public static final int BUFFER_SIZE = Flow.defaultBufferSize();
+
+    private final Downloader downloader;
+    private final ExecutorService downloaders;
+    private final ExecutorService extractors;
+    private final int perHost;
+    private final DocumentCache cache;
+    private final CrawlMetrics metrics = new CrawlMetrics();
+    private final ConcurrentMap<String, HostQueue> hosts = new ConcurrentHashMap<>();
+    private final Set<Crawl> crawls = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * Creates a crawler with a page cache of default capacity.
+     *
+     * @param downloader downloader of pages
+     * @param downloaders maximal number of pages downloaded at once
+     * @param extractors maximal number of pages links are extracted from at once
+     * @param perHost maximal number of pages downloaded from one host at once
+     */
+    public WebCrawler(Downloader downloader, int downloaders, int extractors, int perHost) {
+        this(downloader, downloaders, extractors, perHost, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates a crawler.
+     *
+     * @param downloader downloader of pages
+     * @param downloaders maximal number of pages downloaded at once
+     * @param extractors maximal number of pages links are extracted from at once
+     * @param perHost maximal number of pages downloaded from one host at once
+     * @param cacheCapacity capacity of the page cache, see {@link DocumentCache#DocumentCache(long)}
+     */
+    public WebCrawler(Downloader downloader, int downloaders, int extractors, int perHost, long cacheCapacity) {
+        if (downloaders <= 0 || extractors <= 0 || perHost <= 0) {
+            throw new IllegalArgumentException("Numbers of threads and perHost must be at least 1.");
+        }
+        this.downloader = downloader;
+        this.cache = new DocumentCache(cacheCapacity);
+        this.downloaders = Executors.newFixedThreadPool(downloaders);
+        this.extractors = Executors.newFixedThreadPool(extractors);
+        this.perHost = perHost;
+    }
+
+    /**
+     * Download of a page waiting for a free slot of its host.
+     */
+    private class Download implements Runnable {
+        // Receives the number of running downloads of the host
+        private final IntConsumer task;
+        private final CompletableFuture<DocumentCache.Page> future;
+        private final CrawlMetrics crawlMetrics;
+        private HostQueue queue;
+
+        Download(IntConsumer task, CompletableFuture<DocumentCache.Page> future, CrawlMetrics crawlMetrics) {
+            this.task = task;
+            this.future = future;
+            this.crawlMetrics = crawlMetrics;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.accept(queue.getRunning());
+            } finally {
+                queue.start(queue.next());
+            }
+        }
+
+        // Fails the download which is not run since the crawler is closed
+        void reject() {
+            record(crawlMetrics, CrawlMetrics::downloadDropped);
+            future.completeExceptionally(new RejectedExecutionException("The crawler is closed"));
+        }
+    }
+
+    /**
+     * Downloads of one host. At most {@code perHost} of them are submitted to the pool, the rest wait here.
+     * A queue is removed from {@link #hosts} once it has no downloads, so it holds only hosts being crawled.
+     */
+    private class HostQueue {
+        private final String host;
+        private final Queue<Download> pending = new ArrayDeque<>();
+        private int running;
+        private boolean removed;
+
+        HostQueue(String host) {
+            this.host = host;
+        }
+
+        synchronized int getRunning() {
+            return running;
+        }
+
+        /**
+         * Submits the download.
+         *
+         * @param download download of a page of the host
+         * @return {@code false} if the queue is already removed and the download has to be submitted to a new one
+         */
+        boolean submit(Download download) {
+            synchronized (this) {
+                if (removed) {
+                    return false;
+                }
+                download.queue = this;
+                if (running == perHost) {
+                    pending.add(download);
+                    return true;
+                }
+                running++;
+            }
+            start(download);
+            return true;
+        }
+
+        private void start(Download download) {
+            for (Download current = download; current != null; current = next()) {
+                try {
+                    downloaders.execute(current);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // The crawler is closed, its crawls are already terminated
+                    current.reject();
+                }
+            }
+        }
+
+        // Takes the next pending download, or frees the slot and returns null
+        private synchronized Download next() {
+            Download download = pending.poll();
+            if (download == null && --running == 0) {
+                removed = true;
+                hosts.remove(host, this);
+            }
+            return download;
+        }
+    }
+
+    /**
+     * Pages of one crawl level, i.e. pages at the same distance from the start page.
+     */
+    private static class Level {
+        // Downloads and extractions of the level which are not finished yet
+        private int pending;
+        private int pages;
+        // Extraction is allowed when all previous levels are complete
+        private boolean open;
+        private final List<Crawl.Extraction> deferred = new ArrayList<>();
+    }
+
+    /**
+     * State of one {@link #download} call. Pages are crawled in breadth-first order, but levels overlap:
+     * a link found on a page of level {@code k} is downloaded at once, while links of level {@code k + 1}
+     * pages are extracted only after level {@code k} is complete. So every page is reached on its shortest
+     * distance from the start page, as in a level-by-level crawl.
+     */
+    private class Crawl {
+        private final int depth;
+        private final CrawlMetrics crawlMetrics;
+        // Receiver of pages of a published crawl, null if pages are collected into a list
+        private final CrawlSubscription subscription;
+        private final Set<String> visited = ConcurrentHashMap.newKeySet();
+        private final Queue<String> downloaded = new ConcurrentLinkedQueue<>();
+        private final Map<String, IOException> errors = new ConcurrentHashMap<>();
+        // Levels which are not complete yet, guarded by this
+        private final Map<Integer, Level> levels = new HashMap<>();
+        private int completed;
+        private boolean terminated;
+
+        Crawl(int depth, CrawlMetrics crawlMetrics, CrawlSubscription subscription) {
+            this.depth = depth;
+            this.crawlMetrics = crawlMetrics;
+            this.subscription = subscription;
+        }
+
+        /**
+         * Extraction of links of a downloaded page. It is counted as queued until it is started or dropped.
+         */
+        private class Extraction implements Runnable {
+            private final String url;
+            private final DocumentCache.Page page;
+            private final int index;
+
+            Extraction(String url, DocumentCache.Page page, int index) {
+                this.url = url;
+                this.page = page;
+                this.index = index;
+            }
+
+            @Override
+            public void run() {
+                extract(url, page, index);
+            }
+
+            // The extraction won't run since the crawl is terminated or the crawler is closed
+            void drop() {
+                record(crawlMetrics, CrawlMetrics::extractionDropped);
+            }
+        }
+
+        List<String> run(String url) {
+            start(url);
+            awaitCompletion();
+            crawlMetrics.finish();
+            return new ArrayList<>(downloaded);
+        }
+
+        void start(String url) {
+            if (depth > 0) {
+                visited.add(url);
+                synchronized (this) {
+                    level(0).open = true;
+                }
+                download(url, 0);
+            } else if (subscription != null) {
+                subscription.finish();
+            }
+        }
+
+        private Level level(int index) {
+            return levels.computeIfAbsent(index, i -> new Level());
+        }
+
+        private synchronized void awaitCompletion() {
+            boolean interrupted = false;
+            while (completed < depth && !terminated) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void terminate() {
+            synchronized (this) {
+                terminated = true;
+                for (Level level : levels.values()) {
+                    level.deferred.forEach(Extraction::drop);
+                    level.deferred.clear();
+                }
+                notifyAll();
+            }
+            if (subscription != null) {
+                subscription.finish();
+            }
+        }
+
+        private synchronized void begin(int index, Extraction extraction) {
+            Level level = level(index);
+            level.pending++;
+            if (extraction == null) {
+                level.pages++;
+                return;
+            } else if (terminated) {
+                // Links of a terminated crawl are not followed
+                return;
+            }
+            record(crawlMetrics, CrawlMetrics::extractionQueued);
+            if (level.open) {
+                submitExtraction(extraction);
+            } else {
+                level.deferred.add(extraction);
+            }
+        }
+
+        private void end(int index) {
+            synchronized (this) {
+                level(index).pending--;
+                if (completed == depth) {
+                    return;
+                }
+                while (completed < depth && level(completed).pending == 0) {
+                    Level level = levels.remove(completed++);
+                    if (level.pages == 0) {
+                        completed = depth;
+                    } else if (completed < depth) {
+                        Level next = level(completed);
+                        next.open = true;
+                        next.deferred.forEach(this::submitExtraction);
+                        next.deferred.clear();
+                    }
+                }
+                if (completed < depth) {
+                    return;
+                }
+                notifyAll();
+            }
+            if (subscription != null) {
+                crawlMetrics.finish();
+                subscription.finish();
+            }
+        }
+
+        private void download(String url, int index) {
+            begin(index, null);
+            Runnable fetch = () -> fetch(url, index);
+            if (subscription == null || subscription.acquire(fetch)) {
+                fetch.run();
+            }
+        }
+
+        private void fetch(String url, int index) {
+            cache.get(url, future -> load(url, future, crawlMetrics)).whenComplete((page, e) -> {
+                try {
+                    if (e == null) {
+                        record(crawlMetrics, CrawlMetrics::page);
+                        if (subscription == null) {
+                            downloaded.add(url);
+                        } else {
+                            subscription.emit(new CrawledPage(url, index + 1, page));
+                        }
+                        if (index + 1 < depth) {
+                            begin(index, new Extraction(url, page, index));
+                        }
+                    } else {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        errors.put(url, cause instanceof IOException ? (IOException) cause : new IOException(cause));
+                        if (subscription != null) {
+                            subscription.release();
+                        }
+                    }
+                } finally {
+                    end(index);
+                }
+            });
+        }
+
+        private void extract(String url, DocumentCache.Page page, int index) {
+            record(crawlMetrics, CrawlMetrics::extractionStarted);
+            long start = System.nanoTime();
+            try {
+                for (String link : page.getLinks()) {
+                    if (visited.add(link)) {
+                        download(link, index + 1);
+                    }
+                }
+            } catch (IOException e) {
+                errors.put(url, e);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                record(crawlMetrics, m -> m.extractionFinished(nanos));
+                end(index);
+            }
+        }
+
+        private void submitExtraction(Extraction extraction) {
+            try {
+                extractors.execute(extraction);
+            } catch (RejectedExecutionException e) {
+                // The crawler is closed, the crawl is already terminated
+                extraction.drop();
+            }
+        }
+    }
+
+    /**
+     * Subscription to a published crawl. Every download holds a credit until its page is passed to the
+     * subscriber, so at most {@link #BUFFER_SIZE} pages are downloaded ahead of demand; downloads beyond
+     * that wait without occupying any thread.
+     */
+    private class CrawlSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super CrawledPage> subscriber;
+        private final int maxPages;
+        private final Queue<CrawledPage> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private Crawl crawl;
+        private volatile boolean finished;
+        private volatile boolean cancelled;
+        // Error of a non-positive request, signalled by the draining thread
+        private volatile Throwable error;
+        // Completed when the crawl finishes, so that its timeout is cancelled
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        // Accessed by the draining thread only
+        private boolean terminal;
+        private int delivered;
+        // Guarded by this
+        private int credits = BUFFER_SIZE;
+        private final Queue<Runnable> held = new ArrayDeque<>();
+
+        CrawlSubscription(Flow.Subscriber<? super CrawledPage> subscriber, int maxPages) {
+            this.subscriber = subscriber;
+            this.maxPages = maxPages;
+        }
+
+        synchronized boolean acquire(Runnable fetch) {
+            if (cancelled || finished) {
+                return false;
+            } else if (credits > 0) {
+                credits--;
+                return true;
+            }
+            held.add(fetch);
+            return false;
+        }
+
+        void release() {
+            List<Runnable> fetches = new ArrayList<>();
+            synchronized (this) {
+                credits++;
+                while (credits > 0 && !held.isEmpty() && !cancelled && !finished) {
+                    credits--;
+                    fetches.add(held.poll());
+                }
+            }
+            fetches.forEach(Runnable::run);
+        }
+
+        void emit(CrawledPage page) {
+            if (!finished && !cancelled) {
+                buffer.add(page);
+                drain();
+            }
+        }
+
+        void finish() {
+            finished = true;
+            crawls.remove(crawl);
+            done.complete(null);
+            drain();
+        }
+
+        // Terminates the crawl after the timeout unless it finishes earlier
+        void expireAfter(Duration timeout) {
+            // The subscriber is completed off the JDK's shared timeout thread
+            done.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).exceptionally(e -> {
+                CompletableFuture.runAsync(crawl::terminate);
+                return null;
+            });
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (error == null) {
+                    error = new IllegalArgumentException("Non-positive request: " + n);
+                }
+                stop();
+                drain();
+                return;
+            }
+            demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                synchronized (this) {
+                    held.clear();
+                }
+                stop();
+            }
+        }
+
+        private void stop() {
+            crawl.terminate();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (terminal || cancelled) {
+                    buffer.clear();
+                    continue;
+                } else if (error != null) {
+                    terminal = true;
+                    buffer.clear();
+                    subscriber.onError(error);
+                    continue;
+                }
+                CrawledPage page;
+                while (demand.get() > 0 && delivered < maxPages && !cancelled && (page = buffer.poll()) != null) {
+                    demand.decrementAndGet();
+                    delivered++;
+                    try {
+                        subscriber.onNext(page);
+                    } catch (RuntimeException e) {
+                        // A subscriber throwing from onNext is cancelled, see rule 2.13 of Reactive Streams
+                        cancel();
+                        break;
+                    }
+                    release();
+                }
+                if (delivered == maxPages || finished && buffer.isEmpty()) {
+                    terminal = true;
+                    if (!finished) {
+                        finished = true;
+                        stop();
+                    }
+                    if (!cancelled) {
+                        subscriber.onComplete();
+                    }
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+    }
+
+    /**
+     * Returns publisher of pages reachable from the given URL in less than {@code depth} steps.
+     * Every subscription starts its own crawl and receives pages as soon as they are downloaded.
+     *
+     * @param url start URL
+     * @param depth crawl depth, {@code 1} downloads the start page only
+     * @return publisher of downloaded pages
+     * @see #publish(String, int, int, Duration)
+     */
+    public Flow.Publisher<CrawledPage> publish(String url, int depth) {
+        return publish(url, depth, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Returns publisher of pages reachable from the given URL in less than {@code depth} steps.
+     * Every subscription starts its own crawl and receives pages as soon as they are downloaded.
+     * Downloads don't run further than {@link #BUFFER_SIZE} pages ahead of the subscriber's demand.
+     * The crawl stops when the subscription is cancelled, when {@code maxPages} pages are delivered or when
+     * the timeout expires; the subscriber is then completed normally after pages already downloaded.
+     * Downloads started before that are finished and kept in the cache, but their pages are not delivered.
+     *
+     * @param url start URL
+     * @param depth crawl depth, {@code 1} downloads the start page only
+     * @param maxPages maximal number of pages to deliver
+     * @param timeout maximal duration of the crawl, {@code null} for no limit
+     * @return publisher of downloaded pages
+     */
+    public Flow.Publisher<CrawledPage> publish(String url, int depth, int maxPages, Duration timeout) {
+        Objects.requireNonNull(url);
+        if (maxPages <= 0) {
+            throw new IllegalArgumentException("The number of pages must be at least 1.");
+        }
+        return subscriber -> {
+            CrawlSubscription subscription = new CrawlSubscription(Objects.requireNonNull(subscriber), maxPages);
+            Crawl crawl = new Crawl(depth, new CrawlMetrics(), subscription);
+            subscription.crawl = crawl;
+            crawls.add(crawl);
+            subscriber.onSubscribe(subscription);
+            if (closed) {
+                crawl.terminate();
+                return;
+            }
+            if (timeout != null) {
+                subscription.expireAfter(timeout);
+            }
+            crawl.start(url);
+        };
+    }
+
+    private void record(CrawlMetrics crawlMetrics, Consumer<CrawlMetrics> event) {
+        event.accept(metrics);
+        event.accept(crawlMetrics);
+    }
+
+    // Downloads the page when its host has a free slot
+    private void load(String url, CompletableFuture<DocumentCache.Page> future, CrawlMetrics crawlMetrics) {
+        String host;
+        try {
+            host = URLUtils.getHost(url);
+        } catch (MalformedURLException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        record(crawlMetrics, CrawlMetrics::downloadQueued);
+        Download download = new Download(concurrency -> {
+            record(crawlMetrics, m -> m.downloadStarted(concurrency));
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                DocumentCache.Page page = cache.createPage(url, downloader.download(url));
+                success = true;
+                future.complete(page);
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                boolean succeeded = success;
+                record(crawlMetrics, m -> m.downloadFinished(nanos, succeeded));
+            }
+        }, future, crawlMetrics);
+        // A queue becoming idle concurrently is removed, the download then goes to a new one
+        while (!hosts.computeIfAbsent(host, HostQueue::new).submit(download)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns metrics of all crawls of this crawler.
+     *
+     * @return global metrics
+     */
+    public CrawlMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns cache of downloaded pages with its hit statistics.
+     *
+     * @return page cache
+     */
+    public DocumentCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Downloads pages reachable from the given URL in less than {@code depth} steps.
+     * Every page is downloaded at most once. Pages which failed to download are not returned.
+     * If the crawler is closed meanwhile, pages downloaded so far are returned.
+     *
+     * @param url start URL
+     * @param depth crawl depth, {@code 1} downloads the start page only
+     * @return downloaded pages
+     */
+    @Override
+    public List<String> download(String url, int depth) {
+        return download(url, depth, new CrawlMetrics());
+    }
+
+    /**
+     * Downloads pages reachable from the given URL in less than {@code depth} steps and records
+     * throughput of this crawl.
+     *
+     * @param url start URL
+     * @param depth crawl depth, {@code 1} downloads the start page only
+     * @param crawlMetrics metrics to record the crawl to
+     * @return downloaded pages
+     * @see #download(String, int)
+     */
+    public List<String> download(String url, int depth, CrawlMetrics crawlMetrics) {
+        Crawl crawl = new Crawl(depth, Objects.requireNonNull(crawlMetrics), null);
+        crawls.add(crawl);
+        try {
+            if (closed) {
+                crawl.terminate();
+            }
+            return crawl.run(url);
+        } finally {
+            crawls.remove(crawl);
+        }
+    }
+
+    /**
+     * Stops all helper threads. Running {@link #download} calls return pages downloaded so far.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        // Downloads which haven't started are failed, pending downloads of their hosts are failed after them
+        for (Runnable task : downloaders.shutdownNow()) {
+            Download download = (Download) task;
+            download.reject();
+            download.queue.start(download.queue.next());
+        }
+        extractors.shutdownNow().forEach(task -> ((Crawl.Extraction) task).drop());
+        crawls.forEach(Crawl::terminate);
+        try {
+            downloaders.awaitTermination(1, TimeUnit.MINUTES);
+            extractors.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int getArgument(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    /**
+     * Crawls from the command line: {@code WebCrawler url [depth [downloads [extractors [perHost]]]]}.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args == null || args.length < 1 || args.length > 5) {
+            System.err.println("Usage: WebCrawler url [depth [downloads [extractors [perHost]]]]");
+            return;
+        }
+        for (String arg : args) {
+            if (arg == null) {
+                System.err.println("All arguments must be non-null");
+                return;
+            }
+        }
+        try {
+            int depth = getArgument(args, 1, DEFAULT_DEPTH);
+            int downloads = getArgument(args, 2, DEFAULT_THREADS);
+            int extractors = getArgument(args, 3, DEFAULT_THREADS);
+            int perHost = getArgument(args, 4, downloads);
+            try (Crawler crawler = new WebCrawler(new CachingDownloader(), downloads, extractors, perHost)) {
+                crawler.download(args[0], depth).forEach(System.out::println);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Incorrect number: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Unable to create downloader: " + e.getMessage());
+        }
+    }
+}
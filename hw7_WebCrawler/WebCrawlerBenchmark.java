@@ -0,0 +1,190 @@
+package ru.ifmo.rain.kramer.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Offline benchmark of {@link WebCrawler} on a synthetic link graph with simulated network latency.
+ * Every combination of the given numbers of downloaders, extractors and per-host slots is crawled once
+ * and summarized as one CSV line.
+ * <p>
+ * Usage: {@code WebCrawlerBenchmark [key=value ...]}, see {@link #DEFAULTS} for keys.
+ * Lists of values are separated by commas, e.g. {@code downloaders=4,8,16 perHost=1,2}.
+ */
+public class WebCrawlerBenchmark {
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        // Number of pages in the graph
+        DEFAULTS.put("pages", "20000");
+        // Number of hosts; page hosts follow a Zipf distribution with the given exponent
+        DEFAULTS.put("hosts", "100");
+        DEFAULTS.put("skew", "1.0");
+        // Links per page
+        DEFAULTS.put("links", "10");
+        DEFAULTS.put("depth", "3");
+        // Download latency in milliseconds: fixed:M, uniform:A:B, exp:MEAN or lognormal:MEDIAN:SIGMA
+        DEFAULTS.put("latency", "exp:10");
+        // CPU time of link extraction in microseconds
+        DEFAULTS.put("extract", "50");
+        // Share of failing downloads
+        DEFAULTS.put("failures", "0.01");
+        DEFAULTS.put("downloaders", "8,32");
+        DEFAULTS.put("extractors", "2,8");
+        DEFAULTS.put("perHost", "2,8");
+        DEFAULTS.put("seed", "1");
+    }
+
+    /**
+     * Downloader of a synthetic link graph: page {@code i} is {@code http://hostH.bench/pageI}, its host and links
+     * are chosen pseudo-randomly from {@code i} and the seed.
+     */
+    static class SyntheticDownloader implements Downloader {
+        private final int pages;
+        private final int links;
+        private final long seed;
+        private final double[] hostWeights;
+        private final String latency;
+        private final long extractNanos;
+        private final double failures;
+
+        SyntheticDownloader(int pages, int hosts, double skew, int links, String latency, long extractNanos,
+                            double failures, long seed) {
+            this.pages = pages;
+            this.links = links;
+            this.latency = latency;
+            this.extractNanos = extractNanos;
+            this.failures = failures;
+            this.seed = seed;
+            hostWeights = new double[hosts];
+            double total = 0;
+            for (int i = 0; i < hosts; i++) {
+                total += 1 / Math.pow(i + 1, skew);
+                hostWeights[i] = total;
+            }
+            for (int i = 0; i < hosts; i++) {
+                hostWeights[i] /= total;
+            }
+        }
+
+        String url(int page) {
+            double sample = new Random(seed * 31 + page).nextDouble();
+            int host = Arrays.binarySearch(hostWeights, sample);
+            host = host >= 0 ? host : Math.min(hostWeights.length - 1, -host - 1);
+            return "http://host" + host + ".bench/page" + page;
+        }
+
+        private long sampleLatencyNanos() {
+            String[] parts = latency.split(":");
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double millis;
+            switch (parts[0]) {
+                case "fixed":
+                    millis = Double.parseDouble(parts[1]);
+                    break;
+                case "uniform":
+                    millis = Double.parseDouble(parts[1])
+                            + random.nextDouble() * (Double.parseDouble(parts[2]) - Double.parseDouble(parts[1]));
+                    break;
+                case "exp":
+                    millis = -Math.log(1 - random.nextDouble()) * Double.parseDouble(parts[1]);
+                    break;
+                case "lognormal":
+                    millis = Double.parseDouble(parts[1]) * Math.exp(Double.parseDouble(parts[2]) * random.nextGaussian());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + latency);
+            }
+            return (long) (millis * 1e6);
+        }
+
+        @Override
+        public Document download(String url) throws IOException {
+            int page = Integer.parseInt(url.substring(url.lastIndexOf("page") + "page".length()));
+            try {
+                TimeUnit.NANOSECONDS.sleep(sampleLatencyNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Download interrupted", e);
+            }
+            if (new Random(seed * 17 + page).nextDouble() < failures) {
+                throw new IOException("Simulated failure: " + url);
+            }
+            return () -> {
+                long start = System.nanoTime();
+                Random random = new Random(seed * 13 + page);
+                List<String> result = new ArrayList<>(links);
+                for (int i = 0; i < links; i++) {
+                    result.add(url(random.nextInt(pages)));
+                }
+                while (System.nanoTime() - start < extractNanos) {
+                    Thread.onSpinWait();
+                }
+                return result;
+            };
+        }
+    }
+
+    private static int[] parseInts(String value) {
+        return Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args benchmark parameters as {@code key=value}
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args == null ? new String[0] : args) {
+            int separator = arg == null ? -1 : arg.indexOf('=');
+            if (separator < 0 || !DEFAULTS.containsKey(arg.substring(0, separator))) {
+                System.err.println("Usage: WebCrawlerBenchmark [key=value ...], keys and defaults: " + DEFAULTS);
+                return;
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        try {
+            SyntheticDownloader downloader = new SyntheticDownloader(Integer.parseInt(options.get("pages")),
+                    Integer.parseInt(options.get("hosts")), Double.parseDouble(options.get("skew")),
+                    Integer.parseInt(options.get("links")), options.get("latency"),
+                    Long.parseLong(options.get("extract")) * 1000, Double.parseDouble(options.get("failures")),
+                    Long.parseLong(options.get("seed")));
+            int depth = Integer.parseInt(options.get("depth"));
+            System.out.println("# " + options.entrySet().stream().map(Object::toString).collect(Collectors.joining(" ")));
+            System.out.println("downloaders,extractors,perHost,pages,seconds,pagesPerSecond,downloadP50Ms,downloadP99Ms,"
+                    + "extractP99Ms,maxQueuedDownloads,maxActiveDownloads,maxPerHost,maxQueuedExtractions");
+            for (int downloaders : parseInts(options.get("downloaders"))) {
+                for (int extractors : parseInts(options.get("extractors"))) {
+                    for (int perHost : parseInts(options.get("perHost"))) {
+                        CrawlMetrics metrics = new CrawlMetrics();
+                        try (WebCrawler crawler = new WebCrawler(downloader, downloaders, extractors, perHost, 0)) {
+                            crawler.download(downloader.url(0), depth, metrics);
+                        }
+                        System.out.println(String.format(Locale.ROOT, "%d,%d,%d,%d,%.3f,%.1f,%.2f,%.2f,%.2f,%d,%d,%d,%d",
+                                downloaders, extractors, perHost, metrics.getPages(), metrics.getElapsedNanos() / 1e9,
+                                metrics.getPagesPerSecond(), metrics.getDownloadLatency().getPercentile(0.5) / 1e6,
+                                metrics.getDownloadLatency().getPercentile(0.99) / 1e6,
+                                metrics.getExtractLatency().getPercentile(0.99) / 1e6,
+                                metrics.getQueuedDownloads().getMax(), metrics.getActiveDownloads().getMax(),
+                                metrics.getMaxHostConcurrency(), metrics.getQueuedExtractions().getMax()));
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Incorrect parameter: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.ifmo.rain.kramer.walk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Tests of {@link ParallelWalk}.
+ */
+class ParallelWalkTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @TempDir
+    Path directory;
+
+    private void createTree(Path root, int depth, int files) throws IOException {
+        Files.createDirectories(root);
+        for (int i = 0; i < files; i++) {
+            Files.writeString(root.resolve("f" + i), root + "/" + i);
+        }
+        if (depth > 0) {
+            for (int i = 0; i < 3; i++) {
+                createTree(root.resolve("d" + i), depth - 1, files);
+            }
+        }
+    }
+
+    private List<String> walk(Path input, String... args) throws IOException {
+        Path output = directory.resolve("output" + args.length + ".txt");
+        String[] arguments = new String[args.length + 2];
+        arguments[0] = input.toString();
+        arguments[1] = output.toString();
+        System.arraycopy(args, 0, arguments, 2, args.length);
+        RecursiveWalk.main(arguments);
+        return Files.readAllLines(output, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void sameOutputAsSequentialWalk() throws IOException {
+        Path root = directory.resolve("root");
+        createTree(root, 3, 5);
+        Path input = Files.write(directory.resolve("input.txt"),
+                List.of(root.toString(), root.resolve("d1").toString(), root.resolve("missing").toString()));
+        List<String> sequential = walk(input);
+        assertEquals((1 + 3 + 9 + 27) * 5 + (1 + 3 + 9) * 5 + 1, sequential.size());
+        for (String depth : List.of("0", "1", "4")) {
+            assertEquals(sequential, walk(input, depth, "3"), "Depth " + depth);
+        }
+    }
+
+    @Test
+    void terminatedWalk() throws IOException {
+        Path root = directory.resolve("root");
+        createTree(root, 0, 3000);
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("Disk is full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (ParallelWalk walk = new ParallelWalk(1, 2)) {
+            FileVisitor visitor = new FileVisitor(new BufferedWriter(failing, 1));
+            assertFalse(assertTimeoutPreemptively(TIMEOUT, () -> walk.walk(root, visitor)));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.ifmo.rain.kramer.student;
+
+import info.kgeorgiy.java.advanced.student.Group;
+import info.kgeorgiy.java.advanced.student.Student;
+import org.junit.jupiter.api.Test;
+import ru.ifmo.rain.kramer.concurrent.IterativeParallelism;
+import ru.ifmo.rain.kramer.mapper.ParallelMapperImpl;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of parallel queries of {@link StudentDB} against the sequential ones.
+ */
+class StudentDBTest {
+    private static final List<String> FIRST_NAMES = List.of("Anna", "Boris", "Clara", "Denis", "Eva");
+    private static final List<String> LAST_NAMES = List.of("Ivanov", "Petrova", "Sidorov");
+    private static final StudentDB SEQUENTIAL = new StudentDB();
+
+    private final Random random = new Random(3478923);
+
+    // Ids and names repeat, so stability of sorting and grouping matters
+    private List<Student> randomStudents(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> new Student(random.nextInt(size + 1),
+                        FIRST_NAMES.get(random.nextInt(FIRST_NAMES.size())),
+                        LAST_NAMES.get(random.nextInt(LAST_NAMES.size())),
+                        "M3" + random.nextInt(30)))
+                .collect(Collectors.toList());
+    }
+
+    private static void assertGroups(List<Group> expected, List<Group> actual) {
+        assertEquals(expected.size(), actual.size(), "Groups");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getStudents(), actual.get(i).getStudents(), expected.get(i).getName());
+        }
+    }
+
+    private static void assertSameQueries(StudentDB db, List<Student> students) {
+        Set<Student> set = new LinkedHashSet<>(students);
+        assertEquals(SEQUENTIAL.getFirstNames(students), db.getFirstNames(students));
+        assertEquals(SEQUENTIAL.getLastNames(students), db.getLastNames(students));
+        assertEquals(SEQUENTIAL.getGroups(students), db.getGroups(students));
+        assertEquals(SEQUENTIAL.getFullNames(students), db.getFullNames(students));
+        assertEquals(SEQUENTIAL.getDistinctFirstNames(students), db.getDistinctFirstNames(students));
+        assertEquals(SEQUENTIAL.getMinStudentFirstName(students), db.getMinStudentFirstName(students));
+        assertEquals(SEQUENTIAL.sortStudentsById(set), db.sortStudentsById(set));
+        assertEquals(SEQUENTIAL.sortStudentsByName(students), db.sortStudentsByName(students));
+        assertEquals(SEQUENTIAL.findStudentsByFirstName(set, "Clara"), db.findStudentsByFirstName(set, "Clara"));
+        assertEquals(SEQUENTIAL.findStudentsByLastName(students, "Petrova"),
+                db.findStudentsByLastName(students, "Petrova"));
+        assertEquals(SEQUENTIAL.findStudentsByGroup(students, "M33"), db.findStudentsByGroup(students, "M33"));
+        assertEquals(SEQUENTIAL.findStudentNamesByGroup(students, "M34"),
+                db.findStudentNamesByGroup(students, "M34"));
+        assertGroups(SEQUENTIAL.getGroupsByName(students), db.getGroupsByName(students));
+        assertGroups(SEQUENTIAL.getGroupsById(set), db.getGroupsById(set));
+        assertEquals(SEQUENTIAL.getLargestGroup(students), db.getLargestGroup(students));
+        assertEquals(SEQUENTIAL.getLargestGroupFirstName(students), db.getLargestGroupFirstName(students));
+    }
+
+    private void assertSameQueries(List<StudentDB> dbs) {
+        for (int size : List.of(0, 1, 10, 1000, 20_000)) {
+            List<Student> students = randomStudents(size);
+            for (StudentDB db : dbs) {
+                assertSameQueries(db, students);
+            }
+        }
+    }
+
+    @Test
+    void parallelism() {
+        assertSameQueries(List.of(
+                new StudentDB(new IterativeParallelism(), 4, 0),
+                new StudentDB(new IterativeParallelism(IterativeParallelism.Scheduling.ADAPTIVE), 3, 0),
+                new StudentDB(new IterativeParallelism(), 4)
+        ));
+    }
+
+    @Test
+    void mapper() throws InterruptedException {
+        try (ParallelMapperImpl mapper = new ParallelMapperImpl(3)) {
+            assertSameQueries(List.of(new StudentDB(mapper, 5, 0), new StudentDB(mapper, 2)));
+        }
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new StudentDB(new IterativeParallelism(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new StudentDB(new IterativeParallelism(), 2, -1));
+    }
+}
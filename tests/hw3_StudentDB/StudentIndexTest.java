@@ -0,0 +1,116 @@
+package ru.ifmo.rain.kramer.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link StudentIndex} against filtered results of {@link StudentDB#sortStudentsByName}.
+ */
+class StudentIndexTest {
+    private static final String MAX = String.valueOf(Character.MAX_VALUE);
+    private static final List<String> NAMES = List.of("", "A", "Ab", "Abc", "B", "Ba", "a", "Ж", "Z" + MAX,
+            "Z" + MAX + MAX, "Z" + MAX + "a", MAX, MAX + MAX);
+    private static final StudentDB DB = new StudentDB();
+
+    private final Random random = new Random(8475934);
+
+    // The same student is added several times, so duplicates must stay in the results
+    private List<Student> randomStudents(int size) {
+        List<Student> students = IntStream.range(0, size)
+                .mapToObj(i -> new Student(random.nextInt(size / 2 + 1), NAMES.get(random.nextInt(NAMES.size())),
+                        NAMES.get(random.nextInt(NAMES.size())), "M3" + random.nextInt(10)))
+                .collect(Collectors.toList());
+        IntStream.range(0, size / 10).forEach(i -> students.add(students.get(random.nextInt(size))));
+        return students;
+    }
+
+    private static List<Student> expected(List<Student> students, Predicate<Student> filter) {
+        return DB.sortStudentsByName(students).stream().filter(filter).collect(Collectors.toList());
+    }
+
+    private static Predicate<Student> range(Function<Student, String> name,
+                                            String from, boolean fromInclusive, String to, boolean toInclusive) {
+        return student -> {
+            int lower = name.apply(student).compareTo(from);
+            int upper = name.apply(student).compareTo(to);
+            return (fromInclusive ? lower >= 0 : lower > 0) && (toInclusive ? upper <= 0 : upper < 0);
+        };
+    }
+
+    @Test
+    void prefixes() {
+        List<Student> students = randomStudents(3000);
+        StudentIndex index = DB.indexByName(students);
+        assertEquals(students.size(), index.size());
+        for (String prefix : NAMES) {
+            assertEquals(expected(students, student -> student.getLastName().startsWith(prefix)),
+                    index.findByLastNamePrefix(prefix), "Last name prefix " + prefix);
+            assertEquals(expected(students, student -> student.getFirstName().startsWith(prefix)),
+                    index.findByFirstNamePrefix(prefix), "First name prefix " + prefix);
+        }
+        // Every student starts with the empty prefix
+        assertEquals(DB.sortStudentsByName(students), index.findByLastNamePrefix(""));
+        assertEquals(DB.sortStudentsByName(students), index.findByFirstNamePrefix(""));
+    }
+
+    @Test
+    void ranges() {
+        List<Student> students = randomStudents(3000);
+        StudentIndex index = DB.indexByName(students);
+        for (String from : NAMES) {
+            for (String to : NAMES) {
+                if (from.compareTo(to) > 0) {
+                    continue;
+                }
+                for (int bounds = 0; bounds < 4; bounds++) {
+                    boolean fromInclusive = (bounds & 1) != 0;
+                    boolean toInclusive = (bounds & 2) != 0;
+                    String message = from + (fromInclusive ? " <= " : " < ") + (toInclusive ? "<= " : "< ") + to;
+                    assertEquals(expected(students, range(Student::getLastName, from, fromInclusive, to, toInclusive)),
+                            index.findByLastNameRange(from, fromInclusive, to, toInclusive), message);
+                    assertEquals(expected(students, range(Student::getFirstName, from, fromInclusive, to, toInclusive)),
+                            index.findByFirstNameRange(from, fromInclusive, to, toInclusive), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    void equalBounds() {
+        List<Student> students = randomStudents(500);
+        StudentIndex index = DB.indexByName(students);
+        for (String name : NAMES) {
+            assertTrue(index.findByLastNameRange(name, false, name, true).isEmpty(), name);
+            assertTrue(index.findByLastNameRange(name, true, name, false).isEmpty(), name);
+            assertTrue(index.findByFirstNameRange(name, false, name, false).isEmpty(), name);
+            assertEquals(DB.findStudentsByLastName(students, name), index.findByLastNameRange(name, true, name, true));
+        }
+    }
+
+    @Test
+    void emptyIndex() {
+        StudentIndex index = DB.indexByName(List.of());
+        assertEquals(0, index.size());
+        assertTrue(index.findByLastNamePrefix("").isEmpty());
+        assertTrue(index.findByFirstNameRange("", true, MAX, true).isEmpty());
+    }
+
+    @Test
+    void invalidRanges() {
+        StudentIndex index = DB.indexByName(randomStudents(10));
+        assertThrows(IllegalArgumentException.class, () -> index.findByLastNameRange("B", true, "A", true));
+        assertThrows(IllegalArgumentException.class, () -> index.findByFirstNameRange("B", false, "A", false));
+        assertThrows(NullPointerException.class, () -> index.findByLastNamePrefix(null));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.ifmo.rain.kramer.implementor;
+
+import info.kgeorgiy.java.advanced.implementor.ImplerException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link BatchImplementor} on jars of compiled classes.
+ */
+class BatchImplementorTest {
+    private static final Map<String, String> SOURCES = Map.of(
+            "p/Shape", "package p; public interface Shape { double area(); String name(); }",
+            "p/Base", "package p; public abstract class Base {"
+                    + " protected Base(int size) throws java.io.IOException {} public abstract int size(); }",
+            "p/q/Visitor", "package p.q; public interface Visitor { void visit(p.Shape shape); }",
+            "p/Hidden", "package p; public abstract class Hidden { private Hidden() {} }",
+            "p/Concrete", "package p; public class Concrete { public interface Inner { void run(); } }"
+    );
+
+    @TempDir
+    Path directory;
+
+    // Compiles the sources and packs their classes into a jar
+    private Path compileJar(String name, Map<String, String> sources) throws IOException {
+        Path root = directory.resolve(name);
+        List<String> args = new ArrayList<>(List.of("-d", root.resolve("classes").toString()));
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = root.resolve("src").resolve(source.getKey() + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+            args.add(file.toString());
+        }
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(String[]::new)));
+        Path jar = directory.resolve(name + ".jar");
+        Path classes = root.resolve("classes");
+        try (JarOutputStream writer = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(classes)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                writer.putNextEntry(new ZipEntry(classes.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, writer);
+            }
+        }
+        return jar;
+    }
+
+    private static List<String> entries(Path jar) throws IOException {
+        try (JarFile file = new JarFile(jar.toFile())) {
+            return file.stream().map(ZipEntry::getName).filter(name -> name.endsWith(".class")).sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void implementJar() throws Exception {
+        Path source = compileJar("input", SOURCES);
+        Path output = directory.resolve("output.jar");
+        List<String> failures = new ArrayList<>();
+        assertEquals(3, new BatchImplementor(3, null).implementAll(source.toString(), output, failures));
+        assertEquals(List.of("p/BaseImpl.class", "p/ShapeImpl.class", "p/q/VisitorImpl.class"), entries(output));
+        // Concrete and member classes are not implemented, classes without callable constructors are reported
+        assertEquals(1, failures.size(), failures.toString());
+        assertTrue(failures.get(0).startsWith("p.Hidden: "), failures.get(0));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{source.toUri().toURL(), output.toUri().toURL()},
+                getClass().getClassLoader())) {
+            Object shape = loader.loadClass("p.ShapeImpl").getConstructor().newInstance();
+            assertEquals(0.0, shape.getClass().getMethod("area").invoke(shape));
+            Class<?> base = loader.loadClass("p.BaseImpl");
+            assertEquals(int.class, base.getDeclaredConstructors()[0].getParameterTypes()[0]);
+        }
+    }
+
+    @Test
+    void cachedBatch() throws Exception {
+        Path source = compileJar("input", SOURCES);
+        ImplementorCache cache = new ImplementorCache(directory.resolve("cache"));
+        new BatchImplementor(2, cache).implementAll(source.toString(), directory.resolve("first.jar"),
+                new ArrayList<>());
+        assertEquals(0, cache.getHits());
+        List<String> failures = new ArrayList<>();
+        assertEquals(3, new BatchImplementor(2, cache).implementAll(source.toString(),
+                directory.resolve("second.jar"), failures));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, failures.size(), failures.toString());
+        assertEquals(entries(directory.resolve("first.jar")), entries(directory.resolve("second.jar")));
+    }
+
+    @Test
+    void nothingToImplement() throws IOException {
+        Path source = compileJar("concrete", Map.of("p/Concrete", "package p; public class Concrete {}"));
+        assertThrows(ImplerException.class, () -> new BatchImplementor(2, null)
+                .implementAll(source.toString(), directory.resolve("output.jar"), new ArrayList<>()));
+        assertThrows(ImplerException.class, () -> new BatchImplementor(2, null)
+                .implementAll("no.such.package", directory.resolve("output.jar"), new ArrayList<>()));
+    }
+
+    @Test
+    void invalidThreads() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchImplementor(0, null));
+    }
+}
@@ -0,0 +1,218 @@
+package ru.ifmo.rain.kramer.implementor;
+
+import info.kgeorgiy.java.advanced.concurrent.ListIP;
+import info.kgeorgiy.java.advanced.concurrent.ScalarIP;
+import info.kgeorgiy.java.advanced.crawler.CachingDownloader;
+import info.kgeorgiy.java.advanced.crawler.Crawler;
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import info.kgeorgiy.java.advanced.implementor.Impler;
+import info.kgeorgiy.java.advanced.implementor.ImplerException;
+import info.kgeorgiy.java.advanced.implementor.JarImpler;
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link Implementor} and {@link BytecodeImplementor} on interfaces and classes of the course.
+ */
+class ImplementorTest {
+    // Generated sources declare no type parameters of methods, so only these interfaces compile from sources
+    private static final List<Class<?>> NON_GENERIC = List.of(Downloader.class, Document.class, Crawler.class,
+            Impler.class, JarImpler.class);
+    private static final List<Class<?>> INTERFACES = List.of(Downloader.class, Document.class, Crawler.class,
+            Impler.class, JarImpler.class, ParallelMapper.class, ScalarIP.class);
+    private static final List<Class<?>> CLASSES = List.of(ImplerException.class, CachingDownloader.class);
+    private static final List<Class<?>> INCORRECT = List.of(int.class, String[].class, String.class,
+            Thread.State.class, Enum.class);
+
+    @TempDir
+    Path directory;
+
+    private interface ImplementationCheck {
+        void accept(Class<?> implementation) throws Exception;
+    }
+
+    // Implements the class into a jar and runs the check on the generated class loaded from it
+    private void implementJar(JarImpler implementor, Class<?> clazz, ImplementationCheck check) throws Exception {
+        Path jar = directory.resolve(implementor.getClass().getSimpleName() + "-" + clazz.getSimpleName() + ".jar");
+        implementor.implementJar(clazz, jar);
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> implementation = loader.loadClass(clazz.getName() + "Impl");
+            assertTrue(clazz.isAssignableFrom(implementation), implementation.getName());
+            assertFalse(Modifier.isAbstract(implementation.getModifiers()), implementation.getName());
+            check.accept(implementation);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        return type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+
+    // Every method of an implemented interface returns the default value of its type
+    private static void assertDefaults(Class<?> implementation) throws Exception {
+        Object instance = implementation.getDeclaredConstructor().newInstance();
+        for (Method method : implementation.getDeclaredMethods()) {
+            Object[] args = Arrays.stream(method.getParameterTypes()).map(ImplementorTest::defaultValue).toArray();
+            assertEquals(defaultValue(method.getReturnType()), method.invoke(instance, args), method.toString());
+        }
+    }
+
+    private static Set<String> signatures(Class<?> implementation) {
+        return Arrays.stream(implementation.getDeclaredMethods())
+                .filter(method -> !method.isSynthetic())
+                .map(method -> Modifier.toString(method.getModifiers()) + " " + method.getReturnType().getName()
+                        + " " + method.getName() + Arrays.toString(method.getParameterTypes())
+                        + Arrays.toString(method.getExceptionTypes()))
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> constructors(Class<?> implementation) {
+        return Arrays.stream(implementation.getDeclaredConstructors())
+                .map(constructor -> Modifier.toString(constructor.getModifiers())
+                        + Arrays.toString(constructor.getParameterTypes())
+                        + Arrays.toString(constructor.getExceptionTypes()))
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void bytecodeInterfaces() throws Exception {
+        for (Class<?> clazz : INTERFACES) {
+            implementJar(new BytecodeImplementor(), clazz, ImplementorTest::assertDefaults);
+        }
+    }
+
+    @Test
+    void bytecodeClasses() throws Exception {
+        for (Class<?> clazz : CLASSES) {
+            implementJar(new BytecodeImplementor(), clazz, implementation -> {
+            });
+        }
+        implementJar(new BytecodeImplementor(), ImplerException.class, implementation -> {
+            Constructor<?> constructor = implementation.getDeclaredConstructor(String.class);
+            assertEquals("message", ((Exception) constructor.newInstance("message")).getMessage());
+        });
+    }
+
+    @Test
+    void bytecodeMatchesCompiledSource() throws Exception {
+        for (Class<?> clazz : NON_GENERIC) {
+            implementJar(new Implementor(), clazz, compiled -> implementJar(new BytecodeImplementor(), clazz,
+                    generated -> {
+                        assertEquals(signatures(compiled), signatures(generated), clazz.getName());
+                        assertEquals(constructors(compiled), constructors(generated), clazz.getName());
+                    }));
+        }
+        implementJar(new Implementor(), ImplerException.class, compiled -> implementJar(new BytecodeImplementor(),
+                ImplerException.class, generated -> assertEquals(constructors(compiled), constructors(generated))));
+    }
+
+    private static Set<String> abstractMethods(Class<?> clazz) {
+        return Arrays.stream(clazz.getMethods())
+                .filter(method -> Modifier.isAbstract(method.getModifiers()))
+                .map(method -> method.getName() + Arrays.toString(method.getParameterTypes()))
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void inheritedMethods() throws Exception {
+        // One instance implements several types, so methods resolved for one of them are not reused for another
+        JarImpler implementor = new BytecodeImplementor();
+        for (Class<?> clazz : List.of(ListIP.class, ScalarIP.class, JarImpler.class, Impler.class)) {
+            implementJar(implementor, clazz, implementation -> {
+                List<String> methods = Arrays.stream(implementation.getDeclaredMethods())
+                        .map(method -> method.getName() + Arrays.toString(method.getParameterTypes()))
+                        .collect(Collectors.toList());
+                assertEquals(methods.size(), Set.copyOf(methods).size(), "Methods are implemented once");
+                assertEquals(abstractMethods(clazz), Set.copyOf(methods), clazz.getName());
+            });
+        }
+    }
+
+    @Test
+    void implementSources() throws Exception {
+        Implementor implementor = new Implementor();
+        for (Class<?> clazz : List.of(Downloader.class, JarImpler.class, ImplerException.class)) {
+            implementor.implement(clazz, directory);
+            Path file = directory.resolve(clazz.getPackageName().replace('.', File.separatorChar))
+                    .resolve(clazz.getSimpleName() + "Impl.java");
+            String source = Files.readString(file);
+            assertTrue(source.contains("class " + clazz.getSimpleName() + "Impl "), file.toString());
+            for (Method method : clazz.getMethods()) {
+                if (Modifier.isAbstract(method.getModifiers())) {
+                    assertTrue(source.contains(" " + method.getName() + "("), method.toString());
+                }
+            }
+        }
+    }
+
+    private static void assertStatistics(ImplementorCache cache, long hits, long misses) {
+        assertEquals(hits, cache.getHits(), "Hits");
+        assertEquals(misses, cache.getMisses(), "Misses");
+    }
+
+    @Test
+    void cachedImplementations() throws Exception {
+        Path cacheDirectory = directory.resolve("cache");
+        ImplementorCache cache = new ImplementorCache(cacheDirectory);
+        new Implementor(cache).implementJar(Downloader.class, directory.resolve("first.jar"));
+        assertStatistics(cache, 0, 1);
+        // Instances sharing the cache reuse artifacts of each other
+        new Implementor(cache).implementJar(Downloader.class, directory.resolve("second.jar"));
+        assertStatistics(cache, 1, 1);
+        assertArrayEquals(Files.readAllBytes(directory.resolve("first.jar")),
+                Files.readAllBytes(directory.resolve("second.jar")));
+        // Other types, sources and other generators are stored under their own keys
+        new Implementor(cache).implementJar(Document.class, directory.resolve("document.jar"));
+        new Implementor(cache).implement(Downloader.class, directory.resolve("sources"));
+        new BytecodeImplementor(cache).implementJar(Downloader.class, directory.resolve("bytecode.jar"));
+        assertStatistics(cache, 1, 4);
+        new Implementor(cache).implement(Downloader.class, directory.resolve("sources"));
+        assertStatistics(cache, 2, 4);
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            List<String> keys = files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+            assertEquals(4, keys.size(), keys.toString());
+            // Keys are SHA-256 digests of the implemented types
+            keys.forEach(key -> assertTrue(key.matches("[0-9a-f]{64}\\.(jar|java)"), key));
+        }
+
+        // The cache outlives the process which filled it
+        ImplementorCache reopened = new ImplementorCache(cacheDirectory);
+        new BytecodeImplementor(reopened).implementJar(Downloader.class, directory.resolve("reopened.jar"));
+        assertStatistics(reopened, 1, 0);
+        assertArrayEquals(Files.readAllBytes(directory.resolve("bytecode.jar")),
+                Files.readAllBytes(directory.resolve("reopened.jar")));
+    }
+
+    @Test
+    void incorrectClasses() {
+        for (Class<?> clazz : INCORRECT) {
+            assertThrows(ImplerException.class, () -> new BytecodeImplementor().implementJar(clazz,
+                    directory.resolve("incorrect.jar")), clazz.getName());
+            assertThrows(ImplerException.class, () -> new Implementor().implementJar(clazz,
+                    directory.resolve("incorrect.jar")), clazz.getName());
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package ru.ifmo.rain.kramer.concurrent;
+
+import org.junit.jupiter.api.Test;
+import ru.ifmo.rain.kramer.concurrent.IterativeParallelism.Scheduling;
+import ru.ifmo.rain.kramer.mapper.ParallelMapperImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link IterativeParallelism} against sequential streams.
+ */
+class IterativeParallelismTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int[] THREADS = {1, 2, 3, 8, 50};
+    private static final int[] SIZES = {1, 2, 10, 1000, 100_000};
+
+    private interface Check {
+        void accept(String name, IterativeParallelism parallelism) throws InterruptedException;
+    }
+
+    // Runs the check on instances starting threads, running on an executor and running on a mapper,
+    // with both static and adaptive scheduling
+    private static void forEachInstance(Check check) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ParallelMapperImpl mapper = new ParallelMapperImpl(4);
+        try {
+            check.accept("threads", new IterativeParallelism());
+            check.accept("executor", new IterativeParallelism(executor));
+            check.accept("mapper", new IterativeParallelism(mapper));
+            check.accept("adaptive threads", new IterativeParallelism(Scheduling.ADAPTIVE));
+            check.accept("adaptive executor", new IterativeParallelism(executor, Scheduling.ADAPTIVE));
+            check.accept("adaptive mapper", new IterativeParallelism(mapper, Scheduling.ADAPTIVE));
+        } finally {
+            executor.shutdownNow();
+            mapper.close();
+        }
+    }
+
+    private static List<Integer> randomList(int size) {
+        int bound = Math.max(size, 1);
+        return new Random(size).ints(size, -bound, bound).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void listOperations() throws InterruptedException {
+        Predicate<Integer> even = i -> i % 2 == 0;
+        Function<Integer, String> function = i -> "#" + i;
+        assertTimeoutPreemptively(TIMEOUT, () -> forEachInstance((name, parallelism) -> {
+            for (int size : SIZES) {
+                List<Integer> list = randomList(size);
+                for (int threads : THREADS) {
+                    String context = name + ", " + threads + " threads, " + size + " elements";
+                    assertEquals(list.stream().max(Comparator.naturalOrder()).orElseThrow(),
+                            parallelism.maximum(threads, list, Comparator.naturalOrder()), context);
+                    assertEquals(list.stream().min(Comparator.naturalOrder()).orElseThrow(),
+                            parallelism.minimum(threads, list, Comparator.naturalOrder()), context);
+                    assertEquals(list.stream().allMatch(even), parallelism.all(threads, list, even), context);
+                    assertEquals(list.stream().anyMatch(even), parallelism.any(threads, list, even), context);
+                    assertEquals(list.stream().allMatch(i -> i < size), parallelism.all(threads, list, i -> i < size),
+                            context);
+                    assertEquals(list.stream().map(String::valueOf).collect(Collectors.joining()),
+                            parallelism.join(threads, list), context);
+                    assertEquals(list.stream().filter(even).collect(Collectors.toList()),
+                            parallelism.filter(threads, list, even), context);
+                    assertEquals(list.stream().map(function).collect(Collectors.toList()),
+                            parallelism.map(threads, list, function), context);
+                }
+            }
+        }));
+    }
+
+    @Test
+    void emptyList() throws InterruptedException {
+        forEachInstance((name, parallelism) -> {
+            List<Integer> empty = List.of();
+            assertThrows(IllegalArgumentException.class, () -> parallelism.maximum(4, empty, Integer::compare), name);
+            assertEquals(true, parallelism.all(4, empty, i -> false), name);
+            assertEquals(false, parallelism.any(4, empty, i -> true), name);
+            assertEquals("", parallelism.join(4, empty), name);
+            assertEquals(List.of(), parallelism.filter(4, empty, i -> true), name);
+            assertEquals(List.of(), parallelism.map(4, empty, i -> i), name);
+        });
+    }
+
+    @Test
+    void invalidThreads() throws InterruptedException {
+        forEachInstance((name, parallelism) ->
+                assertThrows(IllegalArgumentException.class, () -> parallelism.map(0, List.of(1), i -> i), name));
+    }
+
+    @Test
+    void failingFunction() throws InterruptedException {
+        List<Integer> list = randomList(1000);
+        forEachInstance((name, parallelism) -> {
+            for (int threads : THREADS) {
+                assertThrows(IllegalStateException.class, () -> parallelism.map(threads, list, i -> {
+                    if (i.equals(list.get(list.size() / 2))) {
+                        throw new IllegalStateException("Failed on " + i);
+                    }
+                    return i;
+                }), name);
+            }
+        });
+    }
+
+    @Test
+    void concurrentCalls() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            IterativeParallelism parallelism = new IterativeParallelism(executor);
+            List<List<Integer>> lists = new ArrayList<>();
+            List<CompletableFuture<List<Integer>>> calls = new ArrayList<>();
+            for (int call = 0; call < 8; call++) {
+                List<Integer> list = randomList(10_000 + call);
+                lists.add(list);
+                calls.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return parallelism.map(3, list, i -> i * 2);
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }));
+            }
+            for (int call = 0; call < calls.size(); call++) {
+                CompletableFuture<List<Integer>> result = calls.get(call);
+                assertEquals(lists.get(call).stream().map(i -> i * 2).collect(Collectors.toList()),
+                        assertTimeoutPreemptively(TIMEOUT, () -> result.join()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void allAndAnyStopEarly() throws InterruptedException {
+        List<Integer> list = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        forEachInstance((name, parallelism) -> {
+            AtomicInteger tested = new AtomicInteger();
+            // Only the first element decides, the others take 0.1 ms to test
+            Predicate<Integer> predicate = i -> {
+                tested.incrementAndGet();
+                if (i != 0) {
+                    LockSupport.parkNanos(100_000);
+                }
+                return i != 0;
+            };
+            assertFalse(parallelism.all(4, list, predicate), name);
+            assertTrue(tested.get() < list.size() / 2, name + ": " + tested + " elements tested by all");
+            tested.set(0);
+            assertTrue(parallelism.any(4, list, predicate.negate()), name);
+            assertTrue(tested.get() < list.size() / 2, name + ": " + tested + " elements tested by any");
+        });
+    }
+
+    @Test
+    void reduceAndMapReduce() throws InterruptedException {
+        // Concatenation is not commutative, so partial results must be combined in order
+        Monoid<String> concatenation = new Monoid<>("", String::concat);
+        assertTimeoutPreemptively(TIMEOUT, () -> forEachInstance((name, parallelism) -> {
+            for (int size : SIZES) {
+                List<Integer> list = randomList(size);
+                for (int threads : THREADS) {
+                    String context = name + ", " + threads + " threads, " + size + " elements";
+                    assertEquals(list.stream().reduce(0, Integer::sum), parallelism.reduce(threads, list, 0, Integer::sum),
+                            context);
+                    assertEquals(list.stream().mapToLong(i -> (long) i * i).sum(),
+                            parallelism.mapReduce(threads, list, i -> (long) i * i, new Monoid<>(0L, Long::sum)), context);
+                    if (size <= 1000) {
+                        assertEquals(list.stream().map(i -> i + ";").collect(Collectors.joining()),
+                                parallelism.mapReduce(threads, list, i -> i + ";", concatenation), context);
+                    }
+                }
+            }
+            assertEquals(1, parallelism.reduce(4, List.<Integer>of(), 1, (a, b) -> a * b), name);
+            assertEquals("", parallelism.mapReduce(4, List.<Integer>of(), i -> i + ";", concatenation), name);
+        }));
+    }
+
+    @Test
+    void primitiveArrays() throws InterruptedException {
+        assertTimeoutPreemptively(TIMEOUT, () -> forEachInstance((name, parallelism) -> {
+            for (int size : SIZES) {
+                int[] ints = new Random(size).ints(size).toArray();
+                long[] longs = new Random(size).longs(size, -1L << 40, 1L << 40).toArray();
+                // Integral values are summed exactly in any order
+                double[] doubles = new Random(size).ints(size, -size, size).asDoubleStream().toArray();
+                for (int threads : THREADS) {
+                    String context = name + ", " + threads + " threads, " + size + " elements";
+                    assertEquals(IntStream.of(ints).max().orElseThrow(), parallelism.maximum(threads, ints), context);
+                    assertEquals(IntStream.of(ints).min().orElseThrow(), parallelism.minimum(threads, ints), context);
+                    assertEquals(IntStream.of(ints).asLongStream().sum(), parallelism.sum(threads, ints), context);
+                    assertEquals(IntStream.of(ints).filter(i -> i > 0).count(),
+                            parallelism.count(threads, ints, i -> i > 0), context);
+                    assertArrayEquals(IntStream.of(ints).filter(i -> i % 3 == 0).toArray(),
+                            parallelism.filter(threads, ints, i -> i % 3 == 0), context);
+                    assertArrayEquals(IntStream.of(ints).map(i -> i ^ 0x5555).toArray(),
+                            parallelism.map(threads, ints, i -> i ^ 0x5555), context);
+
+                    assertEquals(LongStream.of(longs).max().orElseThrow(), parallelism.maximum(threads, longs), context);
+                    assertEquals(LongStream.of(longs).min().orElseThrow(), parallelism.minimum(threads, longs), context);
+                    assertEquals(LongStream.of(longs).sum(), parallelism.sum(threads, longs), context);
+                    assertEquals(LongStream.of(longs).filter(l -> l > 0).count(),
+                            parallelism.count(threads, longs, l -> l > 0), context);
+                    assertArrayEquals(LongStream.of(longs).filter(l -> l % 3 == 0).toArray(),
+                            parallelism.filter(threads, longs, l -> l % 3 == 0), context);
+                    assertArrayEquals(LongStream.of(longs).map(l -> l * 3).toArray(),
+                            parallelism.map(threads, longs, l -> l * 3), context);
+
+                    assertEquals(DoubleStream.of(doubles).max().orElseThrow(), parallelism.maximum(threads, doubles),
+                            context);
+                    assertEquals(DoubleStream.of(doubles).min().orElseThrow(), parallelism.minimum(threads, doubles),
+                            context);
+                    assertEquals(DoubleStream.of(doubles).sum(), parallelism.sum(threads, doubles), context);
+                    assertEquals(DoubleStream.of(doubles).filter(d -> d > 0).count(),
+                            parallelism.count(threads, doubles, d -> d > 0), context);
+                    assertArrayEquals(DoubleStream.of(doubles).filter(d -> d < 0).toArray(),
+                            parallelism.filter(threads, doubles, d -> d < 0), context);
+                    assertArrayEquals(DoubleStream.of(doubles).map(d -> d / 2).toArray(),
+                            parallelism.map(threads, doubles, d -> d / 2), context);
+                }
+            }
+        }));
+    }
+
+    @Test
+    void emptyPrimitiveArrays() throws InterruptedException {
+        forEachInstance((name, parallelism) -> {
+            assertThrows(IllegalArgumentException.class, () -> parallelism.maximum(4, new int[0]), name);
+            assertThrows(IllegalArgumentException.class, () -> parallelism.minimum(4, new long[0]), name);
+            assertThrows(IllegalArgumentException.class, () -> parallelism.maximum(4, new double[0]), name);
+            assertEquals(0, parallelism.sum(4, new int[0]), name);
+            assertEquals(0, parallelism.count(4, new long[0], l -> true), name);
+            assertArrayEquals(new double[0], parallelism.map(4, new double[0], d -> d), name);
+        });
+    }
+
+    @Test
+    void lazySources() throws InterruptedException {
+        Predicate<Integer> even = i -> i % 2 == 0;
+        assertTimeoutPreemptively(TIMEOUT, () -> forEachInstance((name, parallelism) -> {
+            // Sizes around multiples of the batch size
+            for (int size : new int[]{0, 1, 1023, 1025, 5000, 20_000}) {
+                List<Integer> list = randomList(size);
+                for (int threads : new int[]{1, 2, 8}) {
+                    String context = name + ", " + threads + " threads, " + size + " elements";
+                    if (size > 0) {
+                        assertEquals(parallelism.maximum(threads, list, Integer::compare),
+                                parallelism.maximum(threads, list.iterator(), Integer::compare), context);
+                        assertEquals(parallelism.minimum(threads, list, Integer::compare),
+                                parallelism.minimum(threads, list.stream(), Integer::compare), context);
+                    }
+                    assertEquals(list.stream().allMatch(even), parallelism.all(threads, list.iterator(), even), context);
+                    assertEquals(list.stream().anyMatch(even), parallelism.any(threads, list.stream(), even), context);
+                    assertEquals(parallelism.join(threads, list), parallelism.join(threads, list.iterator()), context);
+                    assertEquals(parallelism.join(threads, list), parallelism.join(threads, list.stream()), context);
+                    assertEquals(parallelism.filter(threads, list, even),
+                            parallelism.filter(threads, list.iterator(), even), context);
+                    assertEquals(parallelism.filter(threads, list, even),
+                            parallelism.filter(threads, list.stream(), even), context);
+                    assertEquals(parallelism.map(threads, list, i -> -i),
+                            parallelism.map(threads, list.iterator(), i -> -i), context);
+                    assertEquals(parallelism.map(threads, list, i -> -i),
+                            parallelism.map(threads, list.stream(), i -> -i), context);
+                    assertEquals(parallelism.reduce(threads, list, 0, Integer::sum),
+                            parallelism.reduce(threads, list.iterator(), 0, Integer::sum), context);
+                    assertEquals(parallelism.mapReduce(threads, list, i -> i + ";", new Monoid<>("", String::concat)),
+                            parallelism.mapReduce(threads, list.stream(), i -> i + ";", new Monoid<>("", String::concat)),
+                            context);
+                }
+            }
+            assertThrows(IllegalArgumentException.class,
+                    () -> parallelism.maximum(2, List.<Integer>of().iterator(), Integer::compare), name);
+        }));
+    }
+
+    @Test
+    void infiniteSources() throws InterruptedException {
+        assertTimeoutPreemptively(TIMEOUT, () -> forEachInstance((name, parallelism) -> {
+            assertFalse(parallelism.all(4, Stream.iterate(0, i -> i + 1).iterator(), i -> i < 5000), name);
+            assertTrue(parallelism.any(4, Stream.iterate(0, i -> i + 1), i -> i == 100_000), name);
+        }));
+    }
+
+    @Test
+    void interruptedWorker() throws InterruptedException {
+        List<Thread> workers = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(1, task -> {
+            Thread worker = new Thread(task);
+            workers.add(worker);
+            return worker;
+        });
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        // The caller holds its first batch until the worker waits for it and is interrupted
+        Thread stopper = new Thread(() -> {
+            while (workers.isEmpty() || workers.get(0).getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+            executor.shutdownNow();
+            release.countDown();
+        });
+        stopper.start();
+        try {
+            IterativeParallelism parallelism = new IterativeParallelism(executor);
+            Iterator<Integer> source = IntStream.range(0, 100_000).boxed().iterator();
+            assertThrows(InterruptedException.class, () -> parallelism.map(2, source, i -> {
+                while (Thread.currentThread() == caller && release.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+                return i;
+            }));
+            assertFalse(Thread.currentThread().isInterrupted());
+        } finally {
+            stopper.join();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void adaptiveCheapListOnCallingThread() throws InterruptedException {
+        IterativeParallelism parallelism = new IterativeParallelism(Scheduling.ADAPTIVE);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<Integer> list = randomList(100);
+        Function<Integer, Integer> function = i -> {
+            threads.add(Thread.currentThread());
+            return i;
+        };
+        // Cost of the first calls includes class loading, which could be taken for slow elements
+        for (int i = 0; i < 100; i++) {
+            parallelism.map(8, list, function);
+        }
+        threads.clear();
+        assertEquals(list, parallelism.map(8, list, function));
+        assertEquals(Set.of(Thread.currentThread()), threads);
+    }
+
+    @Test
+    void adaptiveSlowListInParallel() throws InterruptedException {
+        IterativeParallelism parallelism = new IterativeParallelism(Scheduling.ADAPTIVE);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<Integer> list = randomList(2000);
+        // Every tenth element is ten times slower, so equal chunks would be unbalanced
+        List<Integer> result = assertTimeoutPreemptively(TIMEOUT, () -> parallelism.map(4, list, i -> {
+            threads.add(Thread.currentThread());
+            LockSupport.parkNanos(Math.floorMod(i, 10) == 0 ? 500_000 : 50_000);
+            return i;
+        }));
+        assertEquals(list, result);
+        assertTrue(threads.size() > 1, "Slow list is processed on " + threads.size() + " thread");
+    }
+
+    @Test
+    void stableSort() throws InterruptedException {
+        // Few distinct keys, so most elements are equal to others and must keep their order
+        Comparator<Integer> byKey = Comparator.comparingInt(i -> Math.floorMod(i, 7));
+        assertTimeoutPreemptively(TIMEOUT, () -> forEachInstance((name, parallelism) -> {
+            for (int size : SIZES) {
+                List<Integer> list = randomList(size);
+                List<Integer> expected = new ArrayList<>(list);
+                expected.sort(byKey);
+                for (int threads : THREADS) {
+                    String context = name + ", " + threads + " threads, " + size + " elements";
+                    assertEquals(expected, parallelism.sort(threads, list, byKey), context);
+                    assertEquals(list.stream().sorted().collect(Collectors.toList()),
+                            parallelism.sort(threads, list, Comparator.naturalOrder()), context);
+                }
+            }
+            assertEquals(List.of(), parallelism.sort(4, List.<Integer>of(), byKey), name);
+        }));
+    }
+
+    @Test
+    void groupBy() throws InterruptedException {
+        Function<Integer, Integer> classifier = i -> Math.floorMod(i, 13);
+        assertTimeoutPreemptively(TIMEOUT, () -> forEachInstance((name, parallelism) -> {
+            for (int size : SIZES) {
+                List<Integer> list = randomList(size);
+                Map<Integer, List<Integer>> expected = list.stream()
+                        .collect(Collectors.groupingBy(classifier, LinkedHashMap::new, Collectors.toList()));
+                for (int threads : THREADS) {
+                    String context = name + ", " + threads + " threads, " + size + " elements";
+                    Map<Integer, List<Integer>> groups = parallelism.groupBy(threads, list, classifier);
+                    assertEquals(expected, groups, context);
+                    // Keys follow the order of their first elements
+                    assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(groups.keySet()), context);
+                }
+            }
+            assertEquals(Map.of(), parallelism.groupBy(4, List.<Integer>of(), classifier), name);
+            assertThrows(NullPointerException.class, () -> parallelism.groupBy(4, List.of(1, 2), i -> null), name);
+        }));
+    }
+
+    @Test
+    void threadFactoryWithLimit() throws InterruptedException {
+        IterativeParallelism parallelism = new IterativeParallelism(VirtualThreads.factory(), 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> list = randomList(200);
+        // Chunks of concurrent calls share the limit
+        List<CompletableFuture<List<Integer>>> calls = new ArrayList<>();
+        for (int call = 0; call < 3; call++) {
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return parallelism.map(8, list, i -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        LockSupport.parkNanos(100_000);
+                        running.decrementAndGet();
+                        return i;
+                    });
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }));
+        }
+        for (CompletableFuture<List<Integer>> call : calls) {
+            assertEquals(list, assertTimeoutPreemptively(TIMEOUT, () -> call.join()));
+        }
+        assertTrue(maxRunning.get() <= 2, maxRunning + " chunks ran at once");
+        assertThrows(IllegalArgumentException.class, () -> new IterativeParallelism(VirtualThreads.factory(), 0));
+    }
+}
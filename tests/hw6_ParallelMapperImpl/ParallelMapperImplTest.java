@@ -0,0 +1,380 @@
+package ru.ifmo.rain.kramer.mapper;
+
+import org.junit.jupiter.api.Test;
+import ru.ifmo.rain.kramer.mapper.ParallelMapperImpl.Mode;
+import ru.ifmo.rain.kramer.mapper.ParallelMapperImpl.Order;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link ParallelMapperImpl} against sequential streams.
+ */
+class ParallelMapperImplTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int[] THREADS = {1, 2, 8};
+    private static final int[] SIZES = {0, 1, 10, 1000, 100_000};
+
+    private static List<Integer> randomList(int size) {
+        return new Random(size).ints(size).boxed().collect(Collectors.toList());
+    }
+
+    private static <T, R> List<R> map(List<T> list, Function<? super T, ? extends R> function) {
+        return list.stream().map(function).collect(Collectors.toList());
+    }
+
+    private static void assertRuns(Mode mode) throws InterruptedException {
+        Function<Integer, String> function = i -> "#" + i;
+        for (int threads : THREADS) {
+            ParallelMapperImpl mapper = new ParallelMapperImpl(threads, mode);
+            try {
+                for (int size : SIZES) {
+                    List<Integer> list = randomList(size);
+                    assertEquals(map(list, function), mapper.run(function, list),
+                            mode + ", " + threads + " threads, " + size + " elements");
+                }
+            } finally {
+                mapper.close();
+            }
+        }
+    }
+
+    @Test
+    void fifoRuns() {
+        assertTimeoutPreemptively(TIMEOUT, () -> assertRuns(Mode.FIFO));
+    }
+
+    @Test
+    void fairRuns() {
+        assertTimeoutPreemptively(TIMEOUT, () -> assertRuns(Mode.FAIR));
+    }
+
+    @Test
+    void slowElementsOnAllWorkers() throws InterruptedException {
+        for (Mode mode : Mode.values()) {
+            ParallelMapperImpl mapper = new ParallelMapperImpl(4, mode);
+            try {
+                Set<Thread> threads = ConcurrentHashMap.newKeySet();
+                List<Integer> list = randomList(200);
+                // Chunks are sized by the cost of elements, so slow elements are claimed one at a time
+                assertEquals(list, assertTimeoutPreemptively(TIMEOUT, () -> mapper.run(i -> {
+                    threads.add(Thread.currentThread());
+                    LockSupport.parkNanos(200_000);
+                    return i;
+                }, list)));
+                assertEquals(4, threads.size(), mode.toString());
+            } finally {
+                mapper.close();
+            }
+        }
+    }
+
+    @Test
+    void virtualWorkers() throws InterruptedException {
+        // Platform threads are used where virtual ones are not available
+        ParallelMapperImpl mapper = new ParallelMapperImpl(100, true);
+        try {
+            List<Integer> list = randomList(1000);
+            assertEquals(list, assertTimeoutPreemptively(TIMEOUT, () -> mapper.run(i -> {
+                LockSupport.parkNanos(1_000_000);
+                return i;
+            }, list)));
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void concurrentRuns() throws InterruptedException {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(3);
+        try {
+            List<List<Integer>> lists = new ArrayList<>();
+            List<CompletableFuture<List<Integer>>> runs = new ArrayList<>();
+            for (int run = 0; run < 8; run++) {
+                List<Integer> list = randomList(10_000 + run);
+                lists.add(list);
+                runs.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return mapper.run(i -> i / 2, list);
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }));
+            }
+            for (int run = 0; run < runs.size(); run++) {
+                CompletableFuture<List<Integer>> result = runs.get(run);
+                assertEquals(map(lists.get(run), i -> i / 2), assertTimeoutPreemptively(TIMEOUT, () -> result.join()));
+            }
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void failingFunction() throws InterruptedException {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(4);
+        try {
+            List<Integer> list = randomList(1000);
+            assertThrows(IllegalStateException.class, () -> mapper.run(i -> {
+                if (i.equals(list.get(500))) {
+                    throw new IllegalStateException("Failed on " + i);
+                }
+                return i;
+            }, list));
+            // The mapper is still usable
+            assertEquals(list, mapper.run(i -> i, list));
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void closeDuringRun() throws InterruptedException {
+        for (Mode mode : Mode.values()) {
+            assertCloseDuringRun(new ParallelMapperImpl(2, mode));
+        }
+    }
+
+    private static void assertCloseDuringRun(ParallelMapperImpl mapper) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<List<Integer>> run = CompletableFuture.supplyAsync(() -> {
+            try {
+                return mapper.run(i -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return i;
+                }, randomList(1000));
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        });
+        started.await();
+        mapper.close();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> run.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertThrows(IllegalStateException.class, () -> mapper.run(i -> i, List.of(1)));
+    }
+
+    @Test
+    void invalidThreads() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelMapperImpl(0));
+    }
+
+    private static CompletableFuture<List<Integer>> runAsync(ParallelMapperImpl mapper, String tenant, int priority,
+                                                            Function<Integer, Integer> function, List<Integer> list) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return mapper.run(tenant, priority, Integer.MAX_VALUE, function, list);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        });
+    }
+
+    @Test
+    void priorityServedFirst() throws InterruptedException {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(1, Mode.FAIR);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<List<Integer>> low = runAsync(mapper, "low", 0, i -> {
+                started.countDown();
+                LockSupport.parkNanos(1_000_000);
+                return i;
+            }, randomList(300));
+            started.await();
+            List<Integer> list = randomList(10);
+            assertEquals(list, assertTimeoutPreemptively(TIMEOUT,
+                    () -> mapper.run("high", 10, Integer.MAX_VALUE, i -> i, list)));
+            assertFalse(low.isDone(), "Call of higher priority waited for the call of lower priority");
+            assertEquals(randomList(300), assertTimeoutPreemptively(TIMEOUT, () -> low.join()));
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void concurrencyCap() throws InterruptedException {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(4, Mode.FAIR);
+        try {
+            for (int concurrency = 1; concurrency <= 3; concurrency++) {
+                AtomicInteger running = new AtomicInteger();
+                AtomicInteger maxRunning = new AtomicInteger();
+                List<Integer> list = randomList(200);
+                assertEquals(list, mapper.run("capped", 0, concurrency, i -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    LockSupport.parkNanos(100_000);
+                    running.decrementAndGet();
+                    return i;
+                }, list));
+                assertTrue(maxRunning.get() <= concurrency, maxRunning + " elements ran at once, cap " + concurrency);
+            }
+            assertThrows(IllegalArgumentException.class, () -> mapper.run("capped", 0, 0, i -> i, List.of(1)));
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void tenantStats() throws InterruptedException {
+        for (Mode mode : Mode.values()) {
+            ParallelMapperImpl mapper = new ParallelMapperImpl(3, mode);
+            try {
+                mapper.run("a", 0, Integer.MAX_VALUE, i -> i, randomList(100));
+                mapper.run("a", 1, 2, i -> i, randomList(50));
+                mapper.run("b", 0, Integer.MAX_VALUE, i -> i, randomList(10));
+                mapper.run(i -> i, randomList(1));
+                TenantStats a = mapper.getTenantStats("a");
+                assertEquals("a", a.getTenant());
+                assertEquals(2, a.getRuns(), mode.toString());
+                assertEquals(150, a.getStarted(), mode.toString());
+                assertEquals(0, a.getQueued(), mode.toString());
+                assertTrue(a.getMaxWaitNanos() >= a.getAverageWaitNanos(), mode.toString());
+                assertEquals(Set.of("a", "b", ParallelMapperImpl.DEFAULT_TENANT), mapper.getTenantStats().keySet());
+                assertNull(mapper.getTenantStats("c"));
+            } finally {
+                mapper.close();
+            }
+        }
+    }
+
+    @Test
+    void runAsync() throws Exception {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(4);
+        try {
+            for (int size : SIZES) {
+                List<Integer> list = randomList(size);
+                assertEquals(map(list, i -> -i), mapper.runAsync(i -> -i, list).get(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+            }
+            ExecutionException e = assertThrows(ExecutionException.class, () -> mapper.runAsync(i -> {
+                throw new IllegalStateException("Failed on " + i);
+            }, randomList(100)).get(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void indexOrder() throws Exception {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(4);
+        try {
+            List<Integer> list = randomList(10_000);
+            List<Integer> indices = new ArrayList<>();
+            List<Integer> values = new ArrayList<>();
+            AtomicInteger running = new AtomicInteger();
+            List<Integer> result = mapper.runAsync(i -> i / 3, list, Order.INDEX, (value, index) -> {
+                assertEquals(1, running.incrementAndGet(), "Consumer is called concurrently");
+                indices.add(index);
+                values.add(value);
+                running.decrementAndGet();
+            }).get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+            assertEquals(map(list, i -> i / 3), result);
+            assertEquals(IntStream.range(0, list.size()).boxed().collect(Collectors.toList()), indices);
+            assertEquals(result, values);
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void completionOrder() throws Exception {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(4);
+        try {
+            List<Integer> list = randomList(10_000);
+            Map<Integer, Integer> delivered = new ConcurrentHashMap<>();
+            List<Integer> result = mapper.runAsync(i -> i / 3, list, Order.COMPLETION, (value, index) -> {
+                assertNull(delivered.put(index, value), "Result is delivered twice");
+            }).get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+            assertEquals(map(list, i -> i / 3), result);
+            assertEquals(list.size(), delivered.size());
+            delivered.forEach((index, value) -> assertEquals(result.get(index), value));
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void failingConsumer() throws InterruptedException {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(4);
+        try {
+            CompletableFuture<List<Integer>> future = mapper.runAsync(i -> i, randomList(1000), Order.INDEX,
+                    (value, index) -> {
+                        if (index == 500) {
+                            throw new IllegalStateException("Failed on " + index);
+                        }
+                    });
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> future.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void cancelledRunAsync() throws InterruptedException {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(2);
+        try {
+            AtomicInteger applied = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<List<Integer>> future = mapper.runAsync(i -> {
+                applied.incrementAndGet();
+                started.countDown();
+                LockSupport.parkNanos(1_000_000);
+                return i;
+            }, randomList(1000));
+            started.await();
+            future.cancel(true);
+            // The mapper is free again once the started elements are done
+            List<Integer> list = randomList(10);
+            assertEquals(list, assertTimeoutPreemptively(TIMEOUT, () -> mapper.run(i -> i, list)));
+            assertTrue(applied.get() < 1000, "Cancelled call applied the function to all elements");
+        } finally {
+            mapper.close();
+        }
+    }
+
+    @Test
+    void closeDuringRunAsync() throws InterruptedException {
+        ParallelMapperImpl mapper = new ParallelMapperImpl(2);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<List<Integer>> future = mapper.runAsync(i -> {
+            started.countDown();
+            LockSupport.parkNanos(1_000_000);
+            return i;
+        }, randomList(1000));
+        started.await();
+        mapper.close();
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> future.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        e = assertThrows(ExecutionException.class, () -> mapper.runAsync(i -> i, List.of(1)).get());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+}
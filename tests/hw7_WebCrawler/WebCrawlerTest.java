@@ -0,0 +1,175 @@
+package ru.ifmo.rain.kramer.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link WebCrawler} on a generated link graph.
+ */
+class WebCrawlerTest {
+    private static final int PAGES = 2000;
+    private static final int HOSTS = 20;
+    private static final int LINKS = 5;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Downloader of a generated link graph which tracks the number of concurrent downloads of every host.
+     */
+    private static class GraphDownloader implements Downloader {
+        private final long latencyMillis;
+        private final double failures;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final Map<String, AtomicInteger> hostRunning = new ConcurrentHashMap<>();
+        private final AtomicInteger maxHostRunning = new AtomicInteger();
+
+        GraphDownloader(long latencyMillis, double failures) {
+            this.latencyMillis = latencyMillis;
+            this.failures = failures;
+        }
+
+        static String url(int page) {
+            return "http://host" + page % HOSTS + ".test/page" + page;
+        }
+
+        private static int page(String url) {
+            return Integer.parseInt(url.substring(url.lastIndexOf("page") + "page".length()));
+        }
+
+        boolean fails(String url) {
+            return new Random(page(url) * 17L).nextDouble() < failures;
+        }
+
+        List<String> links(String url) {
+            Random random = new Random(page(url) * 13L);
+            List<String> links = new ArrayList<>();
+            for (int i = 0; i < LINKS; i++) {
+                links.add(url(random.nextInt(PAGES)));
+            }
+            return links;
+        }
+
+        @Override
+        public Document download(String url) throws IOException {
+            AtomicInteger host = hostRunning.computeIfAbsent(url.substring(0, url.indexOf(".test")), h -> new AtomicInteger());
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            maxHostRunning.accumulateAndGet(host.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Download interrupted", e);
+            } finally {
+                host.decrementAndGet();
+                running.decrementAndGet();
+            }
+            if (fails(url)) {
+                throw new IOException("Failed: " + url);
+            }
+            List<String> links = links(url);
+            return () -> links;
+        }
+    }
+
+    // Pages of a level-by-level crawl, failed pages are neither returned nor followed
+    private static Set<String> expected(GraphDownloader downloader, String url, int depth) {
+        Set<String> visited = new HashSet<>(List.of(url));
+        Set<String> downloaded = new HashSet<>();
+        List<String> level = List.of(url);
+        for (int i = 0; i < depth; i++) {
+            List<String> next = new ArrayList<>();
+            for (String page : level) {
+                if (downloader.fails(page)) {
+                    continue;
+                }
+                downloaded.add(page);
+                for (String link : downloader.links(page)) {
+                    if (visited.add(link)) {
+                        next.add(link);
+                    }
+                }
+            }
+            level = next;
+        }
+        return downloaded;
+    }
+
+    private static void assertCrawl(int depth, double failures, int downloaders, int extractors, int perHost) {
+        GraphDownloader downloader = new GraphDownloader(1, failures);
+        String url = GraphDownloader.url(0);
+        try (WebCrawler crawler = new WebCrawler(downloader, downloaders, extractors, perHost)) {
+            List<String> pages = assertTimeoutPreemptively(TIMEOUT, () -> crawler.download(url, depth));
+            assertEquals(pages.size(), new HashSet<>(pages).size(), "Pages are downloaded once");
+            assertEquals(expected(downloader, url, depth), new HashSet<>(pages));
+            assertTrue(downloader.maxRunning.get() <= downloaders, "Too many downloads");
+            assertTrue(downloader.maxHostRunning.get() <= perHost, "Too many downloads of one host");
+        }
+    }
+
+    @Test
+    void singlePage() {
+        assertCrawl(1, 0, 1, 1, 1);
+    }
+
+    @Test
+    void deepCrawl() {
+        assertCrawl(4, 0, 8, 4, 2);
+    }
+
+    @Test
+    void failedPages() {
+        assertCrawl(4, 0.2, 8, 4, 2);
+    }
+
+    @Test
+    void singleThreads() {
+        assertCrawl(3, 0.05, 1, 1, 1);
+    }
+
+    @Test
+    void perHostLimit() {
+        assertCrawl(4, 0, 16, 4, 1);
+    }
+
+    @Test
+    void repeatedCrawls() {
+        GraphDownloader downloader = new GraphDownloader(0, 0.05);
+        try (WebCrawler crawler = new WebCrawler(downloader, 8, 4, 2)) {
+            for (int page = 0; page < 5; page++) {
+                String url = GraphDownloader.url(page);
+                List<String> pages = assertTimeoutPreemptively(TIMEOUT, () -> crawler.download(url, 3));
+                assertEquals(expected(downloader, url, 3), new HashSet<>(pages));
+            }
+        }
+    }
+
+    @Test
+    void closeDuringCrawl() throws Exception {
+        GraphDownloader downloader = new GraphDownloader(5, 0);
+        WebCrawler crawler = new WebCrawler(downloader, 2, 1, 1);
+        String url = GraphDownloader.url(0);
+        CompletableFuture<List<String>> crawl = CompletableFuture.supplyAsync(() -> crawler.download(url, 5));
+        Thread.sleep(200);
+        crawler.close();
+        List<String> pages = crawl.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+        assertTrue(expected(downloader, url, 5).containsAll(pages));
+    }
+}